@@ -0,0 +1,174 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.benchmark;
+
+import com.codeminders.socketio.common.SocketIOException;
+import com.codeminders.socketio.protocol.EngineIOPacket;
+import com.codeminders.socketio.protocol.SocketIOPacket;
+import com.codeminders.socketio.protocol.SocketIOProtocol;
+import com.codeminders.socketio.server.*;
+import com.codeminders.socketio.server.transport.AbstractTransportConnection;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cost of broadcasting one event to rooms of growing size.
+ * <p/>
+ * Compares emitting the event to every socket of the room, which encodes it once per recipient,
+ * with {@link Room#emit(String, Object...)}, which encodes it once per broadcast.
+ * Connections only collect Engine.IO packets, so the numbers show the encoding and fan-out cost
+ * without any network IO.
+ * <p/>
+ * Run from the project root with
+ * {@code mvn -pl benchmarks -am compile exec:java -Dexec.mainClass=com.codeminders.socketio.benchmark.BroadcastBenchmark}
+ */
+public final class BroadcastBenchmark
+{
+    private static final int[] ROOM_SIZES           = {1, 10, 100, 1000, 10000};
+    private static final int   RECIPIENTS_PER_ROUND = 200000;
+
+    private static final String EVENT = "message";
+
+    private static long packets; // keeps the JIT from dropping the work
+
+    private static final class SinkConnection extends AbstractTransportConnection
+    {
+        SinkConnection()
+        {
+            super(null);
+        }
+
+        @Override
+        public void handle(HttpServletRequest request, HttpServletResponse response)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void abort()
+        {
+        }
+
+        @Override
+        public void send(EngineIOPacket packet)
+        {
+            packets++;
+        }
+
+        @Override
+        public void send(SocketIOPacket packet) throws SocketIOException
+        {
+            for (EngineIOPacket p : getSession().getPayloadCodec().encode(packet))
+                send(p);
+        }
+
+        @Override
+        public void send(PreparedEvent event)
+        {
+            for (EngineIOPacket p : event.getPackets())
+                send(p);
+        }
+    }
+
+    private BroadcastBenchmark()
+    {
+    }
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        SocketIOManager manager = SocketIOManager.getInstance();
+        final Namespace namespace = manager.createNamespace(SocketIOProtocol.DEFAULT_NAMESPACE);
+
+        final Map<String, Object> message = new LinkedHashMap<>();
+        message.put("user", "benchmark");
+        message.put("text", "The quick brown fox jumps over the lazy dog. " +
+                "The quick brown fox jumps over the lazy dog. The quick brown fox jumps over the lazy dog.");
+
+        int maxSize = ROOM_SIZES[ROOM_SIZES.length - 1];
+        for (int i = 0; i < maxSize; i++)
+        {
+            Session session = manager.createSession(null);
+            SinkConnection connection = new SinkConnection();
+            connection.setSession(session);
+            session.onConnect(connection);
+        }
+
+        double prepare = Harness.nanosPerOp(new Harness.Task()
+        {
+            @Override
+            public void run(int iterations) throws Exception
+            {
+                for (int i = 0; i < iterations; i++)
+                    packets += namespace.prepare(EVENT, message).getPackets().size();
+            }
+        }, RECIPIENTS_PER_ROUND);
+        System.out.printf("encoding of one event: %.0f ns%n%n", prepare);
+
+        System.out.printf("%10s %24s %24s%n", "room size", "per-socket encoding", "prepared event");
+        System.out.printf("%10s %12s %11s %12s %11s%n", "", "ns/event", "ns/socket", "ns/event", "ns/socket");
+        for (int size : ROOM_SIZES)
+        {
+            final Room room = namespace.room("benchmark-" + size);
+            int joined = 0;
+            for (Socket socket : namespace.getSockets())
+            {
+                if (joined++ == size)
+                    break;
+                room.join(socket);
+            }
+
+            int broadcasts = Math.max(RECIPIENTS_PER_ROUND / size, 10);
+
+            double perSocket = Harness.nanosPerOp(new Harness.Task()
+            {
+                @Override
+                public void run(int iterations) throws Exception
+                {
+                    for (int i = 0; i < iterations; i++)
+                        for (Socket socket : room.getSockets())
+                            socket.emit(EVENT, message);
+                }
+            }, broadcasts);
+
+            double prepared = Harness.nanosPerOp(new Harness.Task()
+            {
+                @Override
+                public void run(int iterations) throws Exception
+                {
+                    for (int i = 0; i < iterations; i++)
+                        room.emit(EVENT, message);
+                }
+            }, broadcasts);
+
+            System.out.printf("%10d %12.0f %11.1f %12.0f %11.1f%n",
+                    size, perSocket, perSocket / size, prepared, prepared / size);
+        }
+
+        System.out.println();
+        System.out.println(packets + " packets sent");
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Cost of websocket permessage-deflate: compression of chat events and native memory
+ * held by the deflater and inflater every connection keeps.
+ * <p/>
+ * Websocket containers do the compression themselves with {@link Deflater} and {@link Inflater}
+ * in raw deflate mode, flushing every message with {@link Deflater#SYNC_FLUSH}. Without context takeover
+ * they reset both after every message but keep them, so the memory is held in both modes.
+ * <p/>
+ * Memory is measured as growth of the process RSS while connections are created, Linux only.
+ * <p/>
+ * Run from the project root with
+ * {@code mvn -pl benchmarks -am compile exec:java -Dexec.mainClass=com.codeminders.socketio.benchmark.DeflateBenchmark}
+ */
+public final class DeflateBenchmark
+{
+    private static final int EVENTS      = 200;
+    private static final int CONNECTIONS = 2000;
+
+    private static final byte[] TAIL = {0, 0, (byte) 0xff, (byte) 0xff}; // removed from every message by RFC 7692
+
+    private static final byte[] buffer = new byte[64 * 1024]; // shared, only native memory is per connection
+
+    private static final class Connection
+    {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        final Inflater inflater = new Inflater(true);
+        final boolean  contextTakeover;
+
+        Connection(boolean contextTakeover)
+        {
+            this.contextTakeover = contextTakeover;
+        }
+
+        /**
+         * Compresses the message as the server would send it, and decompresses it as a client message
+         *
+         * @return compressed size
+         */
+        int roundTrip(byte[] message)
+                throws DataFormatException
+        {
+            deflater.setInput(message);
+            int len = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            len -= TAIL.length;
+
+            byte[] compressed = Arrays.copyOf(buffer, len + TAIL.length);
+            inflater.setInput(compressed);
+            int n = inflater.inflate(buffer);
+            if (n != message.length)
+                throw new IllegalStateException("Message is corrupted");
+
+            if (!contextTakeover)
+            {
+                deflater.reset();
+                inflater.reset();
+            }
+            return len;
+        }
+
+        void end()
+        {
+            deflater.end();
+            inflater.end();
+        }
+    }
+
+    private DeflateBenchmark()
+    {
+    }
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        byte[][] events = new byte[EVENTS][];
+        int size = 0;
+        for (int i = 0; i < EVENTS; i++)
+        {
+            events[i] = ("42[\"message\",{\"user\":\"user" + (i % 17) + "\",\"text\":\"message number " + i +
+                    " to the room\",\"time\":" + (1500000000000L + i * 1234L) + "}]").getBytes(StandardCharsets.UTF_8);
+            size += events[i].length;
+        }
+
+        System.out.printf("%d chat events, %d bytes, memory of %d connections%n%n", EVENTS, size, CONNECTIONS);
+        System.out.printf("%-24s %12s %8s %16s%n", "", "compressed", "ratio", "KB/connection");
+
+        // connections of the first mode are kept while the second is measured, so freed memory is not reused
+        Connection[][] connections = new Connection[2][CONNECTIONS];
+        boolean[] modes = {true, false};
+        for (int m = 0; m < modes.length; m++)
+        {
+            Connection connection = new Connection(modes[m]);
+            int compressed = 0;
+            for (byte[] event : events)
+                compressed += connection.roundTrip(event);
+            connection.end();
+
+            System.out.printf("%-24s %12d %7.0f%% %16.1f%n", modes[m] ? "context takeover" : "no context takeover",
+                    compressed, compressed * 100.0 / size, memoryPerConnection(connections[m], modes[m], events));
+        }
+
+        for (Connection[] mode : connections)
+            for (Connection connection : mode)
+                connection.end();
+    }
+
+    /**
+     * @return RSS growth per connection in KB, NaN if RSS is not known
+     */
+    private static double memoryPerConnection(Connection[] connections, boolean takeover, byte[][] events)
+            throws Exception
+    {
+        long before = rss();
+        for (int i = 0; i < connections.length; i++)
+        {
+            connections[i] = new Connection(takeover);
+            // windows are allocated when the first message is processed
+            for (int j = 0; j < 10; j++)
+                connections[i].roundTrip(events[j]);
+        }
+        long after = rss();
+
+        if (before < 0 || after < 0)
+            return Double.NaN;
+        return (after - before) / 1024.0 / connections.length;
+    }
+
+    /**
+     * @return resident set size of the process in bytes, -1 if unknown
+     */
+    private static long rss()
+            throws IOException
+    {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.exists(status))
+            return -1;
+
+        for (String line : Files.readAllLines(status, StandardCharsets.US_ASCII))
+        {
+            if (line.startsWith("VmRSS:"))
+                return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+        }
+        return -1;
+    }
+}
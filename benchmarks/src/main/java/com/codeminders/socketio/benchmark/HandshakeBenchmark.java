@@ -0,0 +1,141 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.benchmark;
+
+import com.codeminders.socketio.protocol.EngineIOPacket;
+import com.codeminders.socketio.protocol.EngineIOProtocol;
+import com.codeminders.socketio.protocol.HandshakeTemplate;
+import com.codeminders.socketio.server.Config;
+import com.codeminders.socketio.server.Session;
+import com.codeminders.socketio.server.SocketIOManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Handshakes per second of a polling transport: OPEN packet creation plus its binary payload encoding.
+ * <p/>
+ * Compares the map encoded by Jackson for every session, as it was done before {@link HandshakeTemplate},
+ * with the template, and shows the whole handshake including session creation.
+ * <p/>
+ * Run from the project root with
+ * {@code mvn -pl benchmarks -am compile exec:java -Dexec.mainClass=com.codeminders.socketio.benchmark.HandshakeBenchmark}
+ */
+public final class HandshakeBenchmark
+{
+    private static final int HANDSHAKES_PER_ROUND = 1000000;
+
+    private static final String[] UPGRADES      = {"websocket"};
+    private static final long     PING_INTERVAL = Config.DEFAULT_PING_INTERVAL;
+    private static final long     PING_TIMEOUT  = Config.DEFAULT_PING_TIMEOUT;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+
+    private static long bytes; // keeps the JIT from dropping the work
+
+    private HandshakeBenchmark()
+    {
+    }
+
+    private static void write(EngineIOPacket packet)
+            throws Exception
+    {
+        out.reset();
+        EngineIOProtocol.binaryEncode(packet, out);
+        bytes += out.size();
+    }
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        final SocketIOManager manager = SocketIOManager.getInstance();
+        final HandshakeTemplate template =
+                EngineIOProtocol.createHandshakeTemplate(UPGRADES, PING_INTERVAL, PING_TIMEOUT);
+
+        final String[] ids = new String[1024];
+        for (int i = 0; i < ids.length; i++)
+        {
+            Session session = manager.createSession(null);
+            ids[i] = session.getSessionId();
+            manager.deleteSession(ids[i]);
+        }
+
+        double map = Harness.nanosPerOp(new Harness.Task()
+        {
+            @Override
+            public void run(int iterations) throws Exception
+            {
+                for (int i = 0; i < iterations; i++)
+                {
+                    Map<String, Object> handshake = new LinkedHashMap<>();
+                    handshake.put("sid", ids[i & (ids.length - 1)]);
+                    handshake.put("upgrades", UPGRADES);
+                    handshake.put("pingInterval", PING_INTERVAL);
+                    handshake.put("pingTimeout", PING_TIMEOUT);
+                    write(new EngineIOPacket(EngineIOPacket.Type.OPEN, mapper.writeValueAsString(handshake)));
+                }
+            }
+        }, HANDSHAKES_PER_ROUND);
+
+        double templated = Harness.nanosPerOp(new Harness.Task()
+        {
+            @Override
+            public void run(int iterations) throws Exception
+            {
+                for (int i = 0; i < iterations; i++)
+                    write(template.createPacket(ids[i & (ids.length - 1)]));
+            }
+        }, HANDSHAKES_PER_ROUND);
+
+        double session = Harness.nanosPerOp(new Harness.Task()
+        {
+            @Override
+            public void run(int iterations) throws Exception
+            {
+                for (int i = 0; i < iterations; i++)
+                {
+                    String id = manager.createSession(null).getSessionId();
+                    write(template.createPacket(id));
+                    manager.deleteSession(id);
+                }
+            }
+        }, HANDSHAKES_PER_ROUND);
+
+        System.out.printf("%-32s %10s %14s%n", "", "ns", "handshakes/s");
+        print("map + Jackson", map);
+        print("template", templated);
+        print("template + session creation", session);
+
+        System.out.println();
+        System.out.println(bytes + " bytes encoded");
+    }
+
+    private static void print(String name, double nanos)
+    {
+        System.out.printf("%-32s %10.0f %14.0f%n", name, nanos, 1e9 / nanos);
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.benchmark;
+
+/**
+ * Minimal timing loop for the benchmarks of this module. Every task runs a number of warm-up rounds
+ * to get compiled and then a number of measured rounds, the fastest round is reported.
+ * <p/>
+ * Numbers are only comparable between runs on the same machine and JVM.
+ */
+final class Harness
+{
+    private static final int WARMUP_ROUNDS   = 10;
+    private static final int MEASURED_ROUNDS = 10;
+
+    interface Task
+    {
+        /**
+         * @param iterations number of operations to run
+         */
+        void run(int iterations) throws Exception;
+    }
+
+    private Harness()
+    {
+    }
+
+    /**
+     * @param task       benchmarked operation
+     * @param iterations operations per round
+     * @return time of one operation in nanoseconds, from the fastest round
+     */
+    static double nanosPerOp(Task task, int iterations)
+            throws Exception
+    {
+        return nanosPerOp(task, iterations, null);
+    }
+
+    /**
+     * @param task       benchmarked operation
+     * @param iterations operations per round
+     * @param cleanup    run after every round, not measured. Could be null
+     * @return time of one operation in nanoseconds, from the fastest round
+     */
+    static double nanosPerOp(Task task, int iterations, Runnable cleanup)
+            throws Exception
+    {
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+        {
+            task.run(iterations);
+            if (cleanup != null)
+                cleanup.run();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            task.run(iterations);
+            best = Math.min(best, System.nanoTime() - start);
+            if (cleanup != null)
+                cleanup.run();
+        }
+        return (double) best / iterations;
+    }
+}
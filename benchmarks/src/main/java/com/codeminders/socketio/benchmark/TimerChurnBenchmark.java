@@ -0,0 +1,157 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.benchmark;
+
+import com.codeminders.socketio.server.Session;
+import com.codeminders.socketio.server.SocketIOManager;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of restarting session timeouts, which happens on every incoming packet, with 100k sessions.
+ * <p/>
+ * Compares {@link Session#resetTimeout()}, which keeps the timeouts in a timing wheel, with cancelling
+ * and scheduling a task on a {@link ScheduledThreadPoolExecutor} for every reset, as sessions did before.
+ * Cancelled tasks stay in the executor queue until their delay runs out; the queue is purged
+ * between rounds, out of the measured time.
+ * <p/>
+ * Run from the project root with
+ * {@code mvn -pl benchmarks -am compile exec:java -Dexec.mainClass=com.codeminders.socketio.benchmark.TimerChurnBenchmark}
+ */
+public final class TimerChurnBenchmark
+{
+    private static final int  SESSIONS          = 100000;
+    private static final int  RESETS_PER_ROUND  = 5000000;
+    private static final long TIMEOUT           = 60 * 1000;
+
+    private static final Runnable NOOP = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+        }
+    };
+
+    private static int queued; // executor queue size after the last round
+
+    private TimerChurnBenchmark()
+    {
+    }
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        SocketIOManager manager = SocketIOManager.getInstance();
+
+        final Session[] sessions = new Session[SESSIONS];
+        for (int i = 0; i < sessions.length; i++)
+        {
+            sessions[i] = manager.createSession(null);
+            sessions[i].setTimeout(TIMEOUT);
+            sessions[i].resetTimeout();
+        }
+
+        // sessions receive packets in random order
+        final int[] order = new int[1 << 20];
+        Random random = new Random(1);
+        for (int i = 0; i < order.length; i++)
+            order[i] = random.nextInt(SESSIONS);
+
+        final ScheduledThreadPoolExecutor executor = (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(1);
+        final Future<?>[] tasks = new Future<?>[SESSIONS];
+
+        Harness.Task scheduled = new Harness.Task()
+        {
+            @Override
+            public void run(int iterations)
+            {
+                for (int i = 0; i < iterations; i++)
+                {
+                    int s = order[i & (order.length - 1)];
+                    if (tasks[s] != null)
+                        tasks[s].cancel(false);
+                    tasks[s] = executor.schedule(NOOP, TIMEOUT, TimeUnit.MILLISECONDS);
+                }
+                queued = executor.getQueue().size();
+            }
+        };
+
+        Harness.Task wheel = new Harness.Task()
+        {
+            @Override
+            public void run(int iterations)
+            {
+                for (int i = 0; i < iterations; i++)
+                    sessions[order[i & (order.length - 1)]].resetTimeout();
+            }
+        };
+
+        double wheelNanos = Harness.nanosPerOp(wheel, RESETS_PER_ROUND);
+        double wheelBytes = bytesPerOp(wheel, RESETS_PER_ROUND);
+
+        // sessions have no connection to close, they must not time out while the executor is measured
+        for (Session session : sessions)
+            session.clearTimeout();
+
+        double scheduledNanos = Harness.nanosPerOp(scheduled, RESETS_PER_ROUND, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                executor.purge();
+            }
+        });
+        int scheduledQueue = queued;
+        double scheduledBytes = bytesPerOp(scheduled, RESETS_PER_ROUND);
+        executor.shutdownNow();
+
+        System.out.printf("%d sessions, %d resets per round, %d s timeouts%n%n",
+                SESSIONS, RESETS_PER_ROUND, TIMEOUT / 1000);
+        System.out.printf("%-20s %10s %10s %14s%n", "", "ns/reset", "B/reset", "queued tasks");
+        System.out.printf("%-20s %10.0f %10.0f %14d%n", "schedule + cancel", scheduledNanos, scheduledBytes, scheduledQueue);
+        System.out.printf("%-20s %10.0f %10.0f %14d%n", "timing wheel", wheelNanos, wheelBytes, 0);
+    }
+
+    /**
+     * @return bytes allocated by the current thread per operation, or NaN if the JVM cannot tell
+     */
+    private static double bytesPerOp(Harness.Task task, int iterations)
+            throws Exception
+    {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            return Double.NaN;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        task.run(iterations);
+        return (double) (threads.getThreadAllocatedBytes(id) - before) / iterations;
+    }
+}
@@ -22,7 +22,9 @@
  */
 package com.codeminders.socketio.protocol;
 
-import com.codeminders.socketio.server.SocketIOProtocolException;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
 
 /**
  * @author Alexander Sova (bird@codeminders.com)
@@ -38,9 +40,9 @@ public abstract class ACKPacket extends SocketIOPacket
     }
 
     @Override
-    protected String encodeArgs() throws SocketIOProtocolException
+    protected void encodeArgs(JsonGenerator gen) throws IOException
     {
-        return SocketIOProtocol.toJSON(args);
+        gen.writeObject(args);
     }
 
     public Object[] getArgs()
@@ -0,0 +1,46 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+/**
+ * Tells the packet decoder what Java type the first argument of an incoming event is expected to be,
+ * so the argument is read straight into that type instead of generic maps and lists.
+ * Also provides event names having listeners, so known names are not allocated by the decoder.
+ */
+public interface ArgumentTypeResolver
+{
+    /**
+     * @param namespace namespace of the event
+     * @param eventName event name
+     * @return type of the first argument of the event, null if the arguments should be decoded as generic JSON,
+     *         {@link LazyArgs} if the arguments should be kept as raw JSON and passed as a single {@link LazyArgs} argument
+     */
+    Class<?> getArgumentType(String namespace, String eventName);
+
+    /**
+     * @param namespace namespace of the event
+     * @return names of the events having listeners in the namespace, null if unknown.
+     *         Used to find event names in the payload without creating strings
+     */
+    EventNames getEventNames(String namespace);
+}
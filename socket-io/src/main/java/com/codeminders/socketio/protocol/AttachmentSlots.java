@@ -0,0 +1,147 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import com.codeminders.socketio.server.SocketIOProtocolException;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Positions of binary attachment placeholders {@code {"_placeholder":true,"num":1}} in the arguments
+ * of incoming binary packet. Collected once when the packet is decoded, so every arriving attachment
+ * is put in place without searching or copying the arguments.
+ */
+final class AttachmentSlots
+{
+    private final Object[] containers; // Object[], List or Map holding the placeholder
+    private final Object[] keys;       // index in the array or list, key in the map
+
+    private AttachmentSlots(int size)
+    {
+        containers = new Object[size];
+        keys = new Object[size];
+    }
+
+    /**
+     * Finds placeholders of all expected attachments.
+     * The number of attachments comes from the packet header, so nothing is allocated by it
+     * until it matches the number of placeholders actually found in the arguments.
+     *
+     * @param args        decoded packet arguments
+     * @param attachments number of attachments expected
+     * @return placeholder positions
+     * @throws SocketIOProtocolException if a placeholder is invalid, duplicated or missing
+     */
+    static AttachmentSlots index(Object[] args, int attachments)
+            throws SocketIOProtocolException
+    {
+        List<Object> found = new ArrayList<>(); // placeholder index, container, key
+        scan(args, found);
+
+        if (found.size() / 3 != attachments)
+            throw new SocketIOProtocolException("Expected " + attachments + " binary objects, found " +
+                    found.size() / 3 + " placeholders");
+
+        AttachmentSlots slots = new AttachmentSlots(attachments);
+        for (int i = 0; i < found.size(); i += 3)
+        {
+            int index = (Integer) found.get(i);
+            if (index >= attachments || slots.containers[index] != null)
+                throw new SocketIOProtocolException("Invalid placeholder object: " + index);
+
+            slots.containers[index] = found.get(i + 1);
+            slots.keys[index] = found.get(i + 2);
+        }
+
+        return slots;
+    }
+
+    /**
+     * Puts the attachment in place of its placeholder
+     *
+     * @param index      attachment number
+     * @param attachment binary object
+     * @throws SocketIOProtocolException if there is no placeholder for the attachment
+     */
+    @SuppressWarnings("unchecked")
+    void insert(int index, InputStream attachment)
+            throws SocketIOProtocolException
+    {
+        if (index < 0 || index >= containers.length)
+            throw new SocketIOProtocolException("No placeholder found for a binary object");
+
+        Object container = containers[index];
+        if (container instanceof Object[])
+            ((Object[]) container)[(Integer) keys[index]] = attachment;
+        else if (container instanceof List)
+            ((List<Object>) container).set((Integer) keys[index], attachment);
+        else
+            ((Map<Object, Object>) container).put(keys[index], attachment);
+    }
+
+    private static void scan(Object json, List<Object> found)
+            throws SocketIOProtocolException
+    {
+        if (json instanceof Object[])
+        {
+            Object[] array = (Object[]) json;
+            for (int i = 0; i < array.length; i++)
+                if (!check(array, i, array[i], found))
+                    scan(array[i], found);
+        }
+        else if (json instanceof List)
+        {
+            List<?> list = (List<?>) json;
+            for (int i = 0; i < list.size(); i++)
+                if (!check(list, i, list.get(i), found))
+                    scan(list.get(i), found);
+        }
+        else if (json instanceof Map)
+        {
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) json).entrySet())
+                if (!check(json, e.getKey(), e.getValue(), found))
+                    scan(e.getValue(), found);
+        }
+    }
+
+    /**
+     * Remembers position of the value if it is a placeholder
+     *
+     * @return true if the value is a placeholder
+     */
+    private static boolean check(Object container, Object key, Object value, List<Object> found)
+            throws SocketIOProtocolException
+    {
+        int index = SocketIOProtocol.getPlaceholderIndex(value);
+        if (index < 0)
+            return false;
+
+        found.add(index);
+        found.add(container);
+        found.add(key);
+        return true;
+    }
+}
@@ -35,6 +35,7 @@ public class BinaryACKPacket extends ACKPacket implements BinaryPacket
 {
     private List<InputStream> attachments;
     private int               number_attachments_expected;
+    private AttachmentSlots   attachment_slots;
 
     public BinaryACKPacket(int id, String ns, Object[] args)
     {
@@ -45,6 +46,16 @@ public class BinaryACKPacket extends ACKPacket implements BinaryPacket
         setArgs((Object[])SocketIOProtocol.extractBinaryObjects(args, attachments));
     }
 
+    /**
+     * Creates packet with binary objects already extracted from the arguments
+     */
+    BinaryACKPacket(int id, String ns, Object[] args, List<InputStream> attachments)
+    {
+        super(Type.BINARY_ACK, id, ns, args);
+
+        this.attachments = attachments;
+    }
+
     public BinaryACKPacket(int id, String ns, Object[] args, int number_attachments_expected)
     {
         super(Type.BINARY_ACK, id, ns, args);
@@ -59,6 +70,16 @@ public class BinaryACKPacket extends ACKPacket implements BinaryPacket
         return SocketIOProtocol.encodeAttachments(attachments.size());
     }
 
+    AttachmentSlots getAttachmentSlots()
+    {
+        return attachment_slots;
+    }
+
+    void setAttachmentSlots(AttachmentSlots attachment_slots)
+    {
+        this.attachment_slots = attachment_slots;
+    }
+
     public Collection<InputStream> getAttachments()
     {
         return attachments;
@@ -37,6 +37,7 @@ public class BinaryEventPacket extends EventPacket implements BinaryPacket
 {
     private List<InputStream> attachments;
     private int               number_attachments_expected;
+    private AttachmentSlots   attachment_slots;
 
     /**
      * This constructor suppose to be called by parser when new packet arrived
@@ -69,11 +70,37 @@ public class BinaryEventPacket extends EventPacket implements BinaryPacket
 
         attachments = new LinkedList<>();
 
-        // We know that extractBinaryObjects does not change the structure of the object,
-        // so we can safely case it to Object[]
+        // We know that extractBinaryObjects keeps arrays as arrays,
+        // so we can safely cast it to Object[]
         setArgs((Object[]) SocketIOProtocol.extractBinaryObjects(args, attachments));
     }
 
+    /**
+     * Creates packet with binary objects already extracted from the arguments
+     *
+     * @param id packet id
+     * @param ns packet namespace
+     * @param name event name
+     * @param args event arguments with placeholders in place of binary objects
+     * @param attachments extracted binary objects
+     */
+    BinaryEventPacket(int id, String ns, String name, Object[] args, List<InputStream> attachments)
+    {
+        super(Type.BINARY_EVENT, id, ns, name, args);
+
+        this.attachments = attachments;
+    }
+
+    AttachmentSlots getAttachmentSlots()
+    {
+        return attachment_slots;
+    }
+
+    void setAttachmentSlots(AttachmentSlots attachment_slots)
+    {
+        this.attachment_slots = attachment_slots;
+    }
+
     public Collection<InputStream> getAttachments()
     {
         return attachments;
@@ -0,0 +1,89 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+/**
+ * Read-only view over a range of a char array.
+ * Used to hand out packets of a text payload without copying every packet into a new String.
+ * <p/>
+ * The underlying array must not be modified while the view is in use.
+ */
+final class CharSlice implements CharSequence
+{
+    private final char[] array;
+    private final int    offset;
+    private final int    length;
+    private String       string;
+
+    CharSlice(char[] array, int offset, int length)
+    {
+        assert (offset >= 0 && length >= 0 && offset + length <= array.length);
+
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    char[] array()
+    {
+        return array;
+    }
+
+    int offset()
+    {
+        return offset;
+    }
+
+    @Override
+    public int length()
+    {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+
+        return array[offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+        if (start < 0 || end > length || start > end)
+            throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+
+        return new CharSlice(array, offset + start, end - start);
+    }
+
+    @Override
+    public String toString()
+    {
+        if (string == null)
+            string = new String(array, offset, length);
+
+        return string;
+    }
+}
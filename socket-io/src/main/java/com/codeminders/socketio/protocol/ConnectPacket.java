@@ -0,0 +1,63 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * CONNECT packet. Since Socket.IO protocol 5 the packet could carry data:
+ * authentication payload from the client, or socket id from the server.
+ */
+public final class ConnectPacket extends SocketIOPacket
+{
+    private final Object args;
+
+    ConnectPacket(String ns, Object args)
+    {
+        super(Type.CONNECT, ns);
+        this.args = args;
+    }
+
+    /**
+     * @return packet data, null if packet has no data
+     */
+    public Object getArgs()
+    {
+        return args;
+    }
+
+    @Override
+    protected boolean hasArgs()
+    {
+        return args != null;
+    }
+
+    @Override
+    protected void encodeArgs(JsonGenerator gen) throws IOException
+    {
+        if (args != null)
+            gen.writeObject(args);
+    }
+}
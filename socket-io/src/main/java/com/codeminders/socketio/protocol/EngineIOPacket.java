@@ -23,6 +23,8 @@
 package com.codeminders.socketio.protocol;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * @author Alexander Sova (bird@codeminders.com)
@@ -70,8 +72,10 @@ public class EngineIOPacket
     }
 
     private Type        type;
-    private String      textData;
-    private InputStream binaryData;
+    private CharSequence textData;
+    private byte[]       textBytes;
+    private InputStream  binaryData;
+    private ByteBuffer   binaryBuffer;
 
     public Type getType()
     {
@@ -80,25 +84,96 @@ public class EngineIOPacket
 
     public String getTextData()
     {
+        if (textData == null && textBytes != null)
+            textData = new String(textBytes, StandardCharsets.UTF_8);
+
+        return textData == null ? null : textData.toString();
+    }
+
+    /**
+     * Same as {@link #getTextData()}, but does not create a String if the packet
+     * is a view over a bigger text payload
+     *
+     * @return text data, null for binary packets
+     */
+    public CharSequence getText()
+    {
+        if (textData == null && textBytes != null)
+            textData = new String(textBytes, StandardCharsets.UTF_8);
+
         return textData;
     }
 
+    /**
+     * @return text data encoded as UTF-8, null for binary packets
+     */
+    public byte[] getTextBytes()
+    {
+        if (textBytes == null && textData != null)
+            textBytes = textData.toString().getBytes(StandardCharsets.UTF_8);
+
+        return textBytes;
+    }
+
+    /**
+     * @return binary data, null for text packets.
+     *         In-memory data is returned as new {@link ByteBufferInputStream} on every call
+     */
     public InputStream getBinaryData()
     {
+        if (binaryBuffer != null)
+            return new ByteBufferInputStream(binaryBuffer);
+
         return binaryData;
     }
 
+    /**
+     * @return binary data if it is in memory and its size is known, null otherwise
+     */
+    public ByteBuffer getBinaryBuffer()
+    {
+        return binaryBuffer == null ? null : binaryBuffer.duplicate();
+    }
+
     public EngineIOPacket(Type type, String data)
     {
         this.type = type;
         this.textData = data;
     }
 
-    //TODO: support byte[] in addtion to InputStream
+    /**
+     * Creates text packet from data already encoded as UTF-8
+     */
+    static EngineIOPacket fromUTF8(Type type, byte[] textBytes)
+    {
+        EngineIOPacket packet = new EngineIOPacket(type, (String) null);
+        packet.textBytes = textBytes;
+        return packet;
+    }
+
+    /**
+     * Creates text packet which is a view over a part of a text payload
+     */
+    static EngineIOPacket fromText(Type type, CharSequence text)
+    {
+        EngineIOPacket packet = new EngineIOPacket(type, (String) null);
+        packet.textData = text;
+        return packet;
+    }
+
     public EngineIOPacket(Type type, InputStream binaryData)
     {
         this.type = type;
-        this.binaryData = binaryData;
+        if (binaryData instanceof ByteBufferInputStream)
+            this.binaryBuffer = ((ByteBufferInputStream) binaryData).getBuffer();
+        else
+            this.binaryData = binaryData;
+    }
+
+    public EngineIOPacket(Type type, ByteBuffer binaryData)
+    {
+        this.type = type;
+        this.binaryBuffer = binaryData.slice();
     }
 
     public EngineIOPacket(Type type)
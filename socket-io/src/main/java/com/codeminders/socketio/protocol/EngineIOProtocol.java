@@ -23,18 +23,19 @@
 package com.codeminders.socketio.protocol;
 
 import com.codeminders.socketio.server.SocketIOProtocolException;
+import com.google.common.io.BaseEncoding;
 import com.google.common.io.ByteStreams;
 
 import java.io.*;
-import java.text.DecimalFormat;
-import java.text.ParsePosition;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
- * Implementation of Engine.IO Protocol version 3
+ * Implementation of Engine.IO Protocol versions 3 and 4
  *
  * @author Alexander Sova (bird@codeminders.com)
  */
@@ -46,6 +47,20 @@ public final class EngineIOProtocol
     public static final String BASE64_FLAG = "b64";
     public static final String VERSION     = "EIO";
 
+    public static final int PROTOCOL_V3 = 3;
+    public static final int PROTOCOL_V4 = 4;
+
+    /**
+     * Separator of packets in Engine.IO 4 polling payloads
+     */
+    public static final char RECORD_SEPARATOR = '\u001e';
+
+    // Engine.IO 4 polling payloads carry binary packets as base64 text with this prefix
+    private static final char BASE64_PREFIX = 'b';
+
+    private static final byte[] BASE64_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
+
     private EngineIOProtocol()
     {
     }
@@ -58,39 +73,189 @@ public final class EngineIOProtocol
     public static void binaryEncode(EngineIOPacket packet, OutputStream os)
             throws IOException
     {
-        if (packet.getBinaryData() != null)
+        ByteBuffer bytes = packet.getBinaryBuffer();
+        if (bytes == null && packet.getBinaryData() != null)
+        {
+            // Cannot avoid double copy. The protocol requires to send the length before the data
+            //TODO: ask user to provide length? Could be useful to send files
+            bytes = ByteBuffer.wrap(ByteStreams.toByteArray(packet.getBinaryData()));
+        }
+
+        if (bytes != null)
         {
-            ByteArrayInputStream bytes;
-            InputStream is = packet.getBinaryData();
-            if(is instanceof ByteArrayInputStream)
-            {
-                bytes = (ByteArrayInputStream)is;
-            }
-            else
-            {
-                // Cannot avoid double copy. The protocol requires to send the length before the data
-                //TODO: ask user to provide length? Could be useful to send files
-                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-                ByteStreams.copy(is, buffer);
-                bytes = new ByteArrayInputStream(buffer.toByteArray());
-            }
             os.write(1); // binary packet
-            os.write(encodeLength(bytes.available() + 1)); // +1 for packet type
+            os.write(encodeLength(bytes.remaining() + 1)); // +1 for packet type
             os.write(255);
             os.write(packet.getType().value());
-            ByteStreams.copy(bytes, os);
+            write(bytes, os);
         }
         else
         {
-            assert(packet.getTextData() != null);
+            byte[] text = packet.getTextBytes();
+            assert(text != null);
 
             os.write(0); // text packet
-            os.write(encodeLength(packet.getTextData().length() + 1)); // +1 for packet type
+            os.write(encodeLength(text.length + 1)); // +1 for packet type
             os.write(255);
             os.write(packet.getType().value() + '0');
-            os.write(packet.getTextData().getBytes("UTF-8"));
+            os.write(text);
+        }
+
+    }
+
+    /**
+     * Encodes the packet as a record of Engine.IO 4 polling payload in UTF-8.
+     * Binary data is encoded as base64 text. Records are separated with {@link #RECORD_SEPARATOR}
+     *
+     * @param packet packet to encode
+     * @param os     stream to write the record to
+     * @throws IOException if binary data of the packet cannot be read or the stream cannot be written
+     */
+    public static void encodeRecord(EngineIOPacket packet, OutputStream os)
+            throws IOException
+    {
+        ByteBuffer bytes = getBinaryBuffer(packet);
+        if (bytes != null)
+        {
+            // only MESSAGE packets could be binary
+            os.write(BASE64_PREFIX);
+            writeBase64(bytes, os);
+        }
+        else
+        {
+            os.write(packet.getType().value() + '0');
+            os.write(packet.getTextBytes());
+        }
+    }
+
+    /**
+     * Encodes the packet as a part of Engine.IO 3 text payload in UTF-8. Used by polling clients
+     * which cannot receive binary payloads ({@link #BASE64_FLAG} is set).
+     * The packet is encoded as {@code <length>:<type><data>}, where length is the number of characters.
+     * Binary data is encoded as {@code <length>:b<type><base64 data>}.
+     * <p/>
+     * Base64 is written to the stream as it is encoded, in small chunks.
+     *
+     * @param packet packet to encode
+     * @param os     stream to write the packet to
+     * @throws IOException if binary data of the packet cannot be read or the stream cannot be written
+     */
+    public static void base64Encode(EngineIOPacket packet, OutputStream os)
+            throws IOException
+    {
+        ByteBuffer bytes = getBinaryBuffer(packet);
+        if (bytes != null)
+        {
+            writeDecimal(base64Length(bytes.remaining()) + 2, os); // +2 for prefix and packet type
+            os.write(':');
+            os.write(BASE64_PREFIX);
+            os.write(packet.getType().value() + '0');
+            writeBase64(bytes, os);
+        }
+        else
+        {
+            byte[] text = packet.getTextBytes();
+
+            writeDecimal(utf16Length(text) + 1, os); // +1 for packet type
+            os.write(':');
+            os.write(packet.getType().value() + '0');
+            os.write(text);
+        }
+    }
+
+    private static ByteBuffer getBinaryBuffer(EngineIOPacket packet)
+            throws IOException
+    {
+        ByteBuffer bytes = packet.getBinaryBuffer();
+        if (bytes == null && packet.getBinaryData() != null)
+        {
+            // size of the stream is unknown. have to read it to send the length first
+            bytes = ByteBuffer.wrap(ByteStreams.toByteArray(packet.getBinaryData()));
+        }
+        return bytes;
+    }
+
+    private static int base64Length(int len)
+    {
+        return (len + 2) / 3 * 4;
+    }
+
+    private static void writeBase64(ByteBuffer bytes, OutputStream os)
+            throws IOException
+    {
+        // both sizes are multiples of 4, so the chunk is flushed only after whole quantums
+        byte[] chunk = new byte[Math.min(base64Length(bytes.remaining()), 4096)];
+        int n = 0;
+        while (bytes.remaining() >= 3)
+        {
+            int v = (bytes.get() & 0xff) << 16 | (bytes.get() & 0xff) << 8 | (bytes.get() & 0xff);
+            chunk[n++] = BASE64_ALPHABET[v >>> 18];
+            chunk[n++] = BASE64_ALPHABET[(v >>> 12) & 0x3f];
+            chunk[n++] = BASE64_ALPHABET[(v >>> 6) & 0x3f];
+            chunk[n++] = BASE64_ALPHABET[v & 0x3f];
+            if (n == chunk.length)
+            {
+                os.write(chunk, 0, n);
+                n = 0;
+            }
         }
 
+        if (bytes.hasRemaining())
+        {
+            int v = (bytes.get() & 0xff) << 16;
+            boolean two = bytes.hasRemaining();
+            if (two)
+                v |= (bytes.get() & 0xff) << 8;
+            chunk[n++] = BASE64_ALPHABET[v >>> 18];
+            chunk[n++] = BASE64_ALPHABET[(v >>> 12) & 0x3f];
+            chunk[n++] = two ? BASE64_ALPHABET[(v >>> 6) & 0x3f] : (byte) '=';
+            chunk[n++] = '=';
+        }
+
+        os.write(chunk, 0, n);
+    }
+
+    private static void writeDecimal(int value, OutputStream os)
+            throws IOException
+    {
+        if (value >= 10)
+            writeDecimal(value / 10, os);
+        os.write('0' + value % 10);
+    }
+
+    /**
+     * @return number of UTF-16 characters in UTF-8 encoded text
+     */
+    private static int utf16Length(byte[] utf8)
+    {
+        int len = 0;
+        for (byte b : utf8)
+        {
+            if ((b & 0xc0) != 0x80)
+                len++; // first byte of a character
+            if ((b & 0xf8) == 0xf0)
+                len++; // 4-byte sequence is a surrogate pair
+        }
+        return len;
+    }
+
+    private static void write(ByteBuffer bytes, OutputStream os)
+            throws IOException
+    {
+        if (bytes.hasArray())
+        {
+            os.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        }
+        else
+        {
+            byte[] chunk = new byte[Math.min(bytes.remaining(), 8192)];
+            while (bytes.hasRemaining())
+            {
+                int len = Math.min(chunk.length, bytes.remaining());
+                bytes.get(chunk, 0, len);
+                os.write(chunk, 0, len);
+            }
+        }
     }
 
     //this is most ridiculous encoding I ever seen
@@ -102,6 +267,15 @@ public final class EngineIOProtocol
         return bytes;
     }
 
+    /**
+     * @param version value of {@link #VERSION} request parameter, could be null
+     * @return protocol version to use with the client, {@link #PROTOCOL_V3} unless {@link #PROTOCOL_V4} is requested
+     */
+    public static int parseVersion(String version)
+    {
+        return String.valueOf(PROTOCOL_V4).equals(version) ? PROTOCOL_V4 : PROTOCOL_V3;
+    }
+
     public static EngineIOPacket decode(String raw)
             throws SocketIOProtocolException
     {
@@ -123,6 +297,37 @@ public final class EngineIOProtocol
     }
 
 
+    /**
+     * Decodes binary message received as a whole. The packet keeps a reference to {@code raw}
+     */
+    public static EngineIOPacket decode(byte[] raw)
+            throws SocketIOProtocolException
+    {
+        assert (raw != null);
+
+        if (raw.length < 1)
+            throw new SocketIOProtocolException("Empty binary object received");
+
+        return new EngineIOPacket(EngineIOPacket.Type.fromInt(raw[0]), ByteBuffer.wrap(raw, 1, raw.length - 1));
+    }
+
+    /**
+     * Decodes binary websocket message received as a whole. The packet keeps a reference to {@code raw}
+     *
+     * @param raw     message
+     * @param version protocol version. Since version 4 binary messages have no packet type and are always MESSAGE
+     * @return decoded packet
+     * @throws SocketIOProtocolException if message is malformed
+     */
+    public static EngineIOPacket decode(byte[] raw, int version)
+            throws SocketIOProtocolException
+    {
+        if (version >= PROTOCOL_V4)
+            return createMessagePacket(ByteBuffer.wrap(raw));
+
+        return decode(raw);
+    }
+
     public static EngineIOPacket decode(InputStream raw)
             throws SocketIOProtocolException
     {
@@ -147,20 +352,30 @@ public final class EngineIOProtocol
                                                        long ping_interval,
                                                        long ping_timeout)
     {
-        Map<String, Object> map = new LinkedHashMap<>();
-        map.put("sid", session_id);
-        map.put("upgrades", upgrades);
-        map.put("pingInterval", ping_interval);
-        map.put("pingTimeout", ping_timeout);
+        return createHandshakeTemplate(upgrades, ping_interval, ping_timeout).createPacket(session_id);
+    }
 
+    /**
+     * Encodes handshake packet for sessions having the same configuration.
+     * Transports create the template once and only put session id into it for every new session.
+     *
+     * @param upgrades      transports the sessions could be upgraded to
+     * @param ping_interval ping interval, ms
+     * @param ping_timeout  ping timeout, ms
+     * @return handshake template
+     */
+    public static HandshakeTemplate createHandshakeTemplate(String[] upgrades,
+                                                            long ping_interval,
+                                                            long ping_timeout)
+    {
         try
         {
-            return new EngineIOPacket(EngineIOPacket.Type.OPEN, SocketIOProtocol.toJSON(map));
+            return new HandshakeTemplate(upgrades, ping_interval, ping_timeout);
         }
         catch (SocketIOProtocolException e)
         {
-            // ignore. never happen
-            return null;
+            // never happens, array of strings is always converted to JSON
+            throw new IllegalArgumentException(e);
         }
     }
 
@@ -189,11 +404,44 @@ public final class EngineIOProtocol
         return new EngineIOPacket(EngineIOPacket.Type.MESSAGE, data);
     }
 
+    /**
+     * Creates MESSAGE packet with Socket.IO packet encoded straight to UTF-8 bytes
+     *
+     * @param packet Socket.IO packet to encode
+     * @param buffer reusable buffer to encode the packet into. It is reset before use.
+     *               Caller is responsible for not sharing it between threads
+     * @return new MESSAGE packet
+     * @throws SocketIOProtocolException if packet cannot be encoded
+     */
+    public static EngineIOPacket createMessagePacket(SocketIOPacket packet, ByteArrayOutputStream buffer)
+            throws SocketIOProtocolException
+    {
+        buffer.reset();
+        try
+        {
+            packet.encode(buffer);
+        }
+        catch (SocketIOProtocolException e)
+        {
+            throw e;
+        }
+        catch (IOException e)
+        {
+            throw new SocketIOProtocolException("Cannot convert object to JSON", e);
+        }
+        return EngineIOPacket.fromUTF8(EngineIOPacket.Type.MESSAGE, buffer.toByteArray());
+    }
+
     public static EngineIOPacket createMessagePacket(InputStream data)
     {
         return new EngineIOPacket(EngineIOPacket.Type.MESSAGE, data);
     }
 
+    public static EngineIOPacket createMessagePacket(ByteBuffer data)
+    {
+        return new EngineIOPacket(EngineIOPacket.Type.MESSAGE, data);
+    }
+
     public static EngineIOPacket createUpgradePacket()
     {
         return new EngineIOPacket(EngineIOPacket.Type.UPGRADE);
@@ -207,64 +455,230 @@ public final class EngineIOProtocol
     public static List<EngineIOPacket> decodePayload(String payload)
             throws SocketIOProtocolException
     {
-        ArrayList<EngineIOPacket> packets = new ArrayList<>();
+        return decodePayload(payload.toCharArray(), 0, payload.length());
+    }
 
-        ParsePosition pos = new ParsePosition(0);
+    /**
+     * Reads whole text payload from the reader and decodes it
+     *
+     * @param reader reader to read the payload from. It is not closed.
+     * @return packets of the payload
+     */
+    public static List<EngineIOPacket> decodePayload(Reader reader)
+            throws IOException
+    {
+        return decodePayload(reader, Integer.MAX_VALUE);
+    }
 
-        while(pos.getIndex() < payload.length())
+    /**
+     * Reads whole text payload from the reader and decodes it
+     *
+     * @param reader  reader to read the payload from. It is not closed.
+     * @param maxSize maximum number of characters in the payload
+     * @return packets of the payload
+     * @throws SocketIOProtocolException if payload is malformed or exceeds {@code maxSize}.
+     *                                   Oversized payload is rejected as soon as the limit is reached.
+     */
+    public static List<EngineIOPacket> decodePayload(Reader reader, int maxSize)
+            throws IOException
+    {
+        CharBuffer payload = readPayload(reader, maxSize);
+        return decodePayload(payload.array(), 0, payload.limit());
+    }
+
+    /**
+     * Decodes text payload in form of {@code <length>:<packet>[<length>:<packet>...]}.
+     * Binary packets of clients without binary support are base64 encoded and start with {@code b}.
+     * Data of the packets are views over the {@code payload} array, so the array
+     * must not be modified after the call.
+     *
+     * @param payload array holding the payload
+     * @param offset  start of the payload in the array
+     * @param length  length of the payload
+     * @return packets of the payload
+     * @throws SocketIOProtocolException if payload is malformed
+     */
+    public static List<EngineIOPacket> decodePayload(char[] payload, int offset, int length)
+            throws SocketIOProtocolException
+    {
+        ArrayList<EngineIOPacket> packets = new ArrayList<>();
+
+        final int end = offset + length;
+        int pos = offset;
+        while (pos < end)
         {
-            int len = decodePacketLength(payload, pos);
-            EngineIOPacket.Type type = decodePacketType(payload, pos);
-            String data = payload.substring(pos.getIndex(), pos.getIndex() + len-1 );
-            pos.setIndex(pos.getIndex() + 1 + len);
+            // packet length, including packet type, followed by ':' delimiter
+            long len = 0;
+            int start = pos;
+            char ch;
+            while (pos < end && (ch = payload[pos]) >= '0' && ch <= '9')
+            {
+                len = len * 10 + (ch - '0');
+                if (len > length)
+                    throw new SocketIOProtocolException("Invalid packet length");
+                pos++;
+            }
+            if (pos == start || pos == end || payload[pos] != ':')
+                throw new SocketIOProtocolException("No packet length defined");
+            pos++;
 
-            switch (type)
+            if (len < 1 || len > end - pos)
+                throw new SocketIOProtocolException("Invalid packet length: " + len);
+
+            ch = payload[pos];
+            if (ch == BASE64_PREFIX)
             {
-                case CLOSE:
-                    packets.add(createClosePacket());
-                    break;
-                case PING:
-                    packets.add(createPingPacket(data));
-                    break;
-                case MESSAGE:
-                    packets.add(createMessagePacket(data));
-                    break;
-                case UPGRADE:
-                    packets.add(createUpgradePacket());
-                    break;
-                case NOOP:
-                    packets.add(createNoopPacket());
-                    break;
-                default:
-                    throw new SocketIOProtocolException("Unexpected EIO packet type: " + type);
+                // binary packet sent by a client without binary support: b<type><base64 data>
+                if (len < 2 || payload[pos + 1] != '0' + EngineIOPacket.Type.MESSAGE.value())
+                    throw new SocketIOProtocolException("Invalid base64 EIO packet");
+
+                packets.add(createMessagePacket(ByteBuffer.wrap(decodeBase64(payload, pos + 2, (int) len - 2))));
+                pos += (int) len;
+                continue;
             }
+            if (ch < '0' || ch > '9')
+                throw new SocketIOProtocolException("Invalid EIO packet type: " + ch);
+            EngineIOPacket.Type type = EngineIOPacket.Type.fromInt(ch - '0');
+
+            CharSlice data = new CharSlice(payload, pos + 1, (int) len - 1);
+            pos += (int) len;
+
+            packets.add(createTextPacket(type, data));
         }
 
         return packets;
     }
 
-    static int decodePacketLength(String data, ParsePosition pos)
+    /**
+     * Reads whole Engine.IO 4 text payload from the reader and decodes it
+     *
+     * @param reader reader to read the payload from. It is not closed.
+     * @return packets of the payload
+     */
+    public static List<EngineIOPacket> decodeRecordPayload(Reader reader)
+            throws IOException
+    {
+        return decodeRecordPayload(reader, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads whole Engine.IO 4 text payload from the reader and decodes it
+     *
+     * @param reader  reader to read the payload from. It is not closed.
+     * @param maxSize maximum number of characters in the payload
+     * @return packets of the payload
+     * @throws SocketIOProtocolException if payload is malformed or exceeds {@code maxSize}
+     */
+    public static List<EngineIOPacket> decodeRecordPayload(Reader reader, int maxSize)
+            throws IOException
+    {
+        CharBuffer payload = readPayload(reader, maxSize);
+        return decodeRecordPayload(payload.array(), 0, payload.limit());
+    }
+
+    private static CharBuffer readPayload(Reader reader, int maxSize)
+            throws IOException
+    {
+        // one character more than allowed is enough to tell that the payload is too large
+        final long capacity = (long)maxSize + 1;
+
+        char[] buffer = new char[(int)Math.min(1024, capacity)];
+        int size = 0;
+        int n;
+        while ((n = reader.read(buffer, size, buffer.length - size)) != -1)
+        {
+            size += n;
+            if (size > maxSize)
+                throw new SocketIOProtocolException("Payload is too large, max size is " + maxSize);
+            if (size == buffer.length)
+                buffer = Arrays.copyOf(buffer, (int)Math.min(size * 2L, capacity));
+        }
+
+        return CharBuffer.wrap(buffer, 0, size);
+    }
+
+    /**
+     * Decodes Engine.IO 4 text payload in form of {@code <packet>[\x1e<packet>...]}.
+     * Binary packets are base64 encoded and start with {@code b}.
+     * Data of the text packets are views over the {@code payload} array, so the array
+     * must not be modified after the call.
+     *
+     * @param payload array holding the payload
+     * @param offset  start of the payload in the array
+     * @param length  length of the payload
+     * @return packets of the payload
+     * @throws SocketIOProtocolException if payload is malformed
+     */
+    public static List<EngineIOPacket> decodeRecordPayload(char[] payload, int offset, int length)
             throws SocketIOProtocolException
     {
-        Number len = new DecimalFormat("#").parse(data, pos);
-        if (len == null)
-            throw new SocketIOProtocolException("No packet length defined");
+        ArrayList<EngineIOPacket> packets = new ArrayList<>();
 
-        pos.setIndex(pos.getIndex() + 1);
+        final int end = offset + length;
+        int pos = offset;
+        while (pos < end)
+        {
+            int next = pos;
+            while (next < end && payload[next] != RECORD_SEPARATOR)
+                next++;
+
+            if (next == pos)
+                throw new SocketIOProtocolException("Empty EIO packet");
 
-        return len.intValue();
+            char ch = payload[pos];
+            if (ch == BASE64_PREFIX)
+            {
+                packets.add(createMessagePacket(ByteBuffer.wrap(decodeBase64(payload, pos + 1, next - pos - 1))));
+            }
+            else
+            {
+                if (ch < '0' || ch > '9')
+                    throw new SocketIOProtocolException("Invalid EIO packet type: " + ch);
+
+                packets.add(createTextPacket(EngineIOPacket.Type.fromInt(ch - '0'),
+                        new CharSlice(payload, pos + 1, next - pos - 1)));
+            }
+
+            pos = next + 1;
+        }
+
+        return packets;
     }
 
-    static EngineIOPacket.Type decodePacketType(String data, ParsePosition pos)
+    private static byte[] decodeBase64(char[] payload, int offset, int length)
             throws SocketIOProtocolException
     {
-        int idx = pos.getIndex();
-        EngineIOPacket.Type type = EngineIOPacket.Type.fromInt(Integer.parseInt(data.substring(idx, idx + 1)));
-        pos.setIndex(idx + 1);
-        return type;
+        try
+        {
+            return BaseEncoding.base64().decode(CharBuffer.wrap(payload, offset, length));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new SocketIOProtocolException("Invalid base64 data", e);
+        }
     }
 
-    static int decodePacketLength(InputStream is)
+    private static EngineIOPacket createTextPacket(EngineIOPacket.Type type, CharSlice data)
+            throws SocketIOProtocolException
+    {
+        switch (type)
+        {
+            case CLOSE:
+                return createClosePacket();
+            case PING:
+            case PONG:
+            case MESSAGE:
+                return EngineIOPacket.fromText(type, data);
+            case UPGRADE:
+                return createUpgradePacket();
+            case NOOP:
+                return createNoopPacket();
+            default:
+                throw new SocketIOProtocolException("Unexpected EIO packet type: " + type);
+        }
+    }
+
+    static int decodePacketLength(InputStream is, int maxLength)
             throws IOException
     {
         int len = 0;
@@ -276,6 +690,8 @@ public final class EngineIOProtocol
                 return -1; // end of stream. time to go
             if(b > 9)
                 break; // end of encoded length
+            if(b > maxLength || len > (maxLength - b) / 10)
+                throw new SocketIOProtocolException("Payload is too large");
             len = len * 10 + b;
         }
 
@@ -297,8 +713,24 @@ public final class EngineIOProtocol
     public final static int TEXT_FORMAT   = 0;
     public final static int BINARY_FORMAT = 1;
     public static List<EngineIOPacket> binaryDecodePayload(InputStream is) throws IOException
+    {
+        return binaryDecodePayload(is, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Decodes binary payload.
+     * Packet lengths are checked against the remaining size before packet data is read,
+     * so oversized payload is rejected without buffering it.
+     *
+     * @param is      stream to read the payload from. It is not closed.
+     * @param maxSize maximum number of bytes of packet data in the payload
+     * @return packets of the payload
+     * @throws SocketIOProtocolException if payload is malformed or exceeds {@code maxSize}
+     */
+    public static List<EngineIOPacket> binaryDecodePayload(InputStream is, int maxSize) throws IOException
     {
         final ArrayList<EngineIOPacket> packets = new ArrayList<>();
+        int remaining = maxSize;
         while (true)
         {
             final int packetFormat = is.read();
@@ -306,11 +738,14 @@ public final class EngineIOProtocol
                 break; // end of payload stream, done
             if(packetFormat != BINARY_FORMAT && packetFormat != TEXT_FORMAT)
                 throw new SocketIOProtocolException("Unknown packet format (should be 0 or 1) :" + packetFormat);
-            final int len = decodePacketLength(is);
+            final int len = decodePacketLength(is, remaining);
             if(len < 0) // end of payload stream, done
                 break;
             if(packetFormat == BINARY_FORMAT && len == 0)
                 throw new SocketIOProtocolException("Empty binary attachment");
+            if(len == 0)
+                throw new SocketIOProtocolException("Invalid packet length: 0");
+            remaining -= len;
             final EngineIOPacket.Type packetType = decodePacketType(packetFormat,is);
             byte[] data = new byte[len-1];
             ByteStreams.readFully(is, data, 0, data.length);
@@ -330,7 +765,7 @@ public final class EngineIOProtocol
                     if(packetFormat == TEXT_FORMAT)
                         packets.add(createMessagePacket(new String(data,"UTF-8")));
                     else
-                        packets.add(createMessagePacket(new ByteArrayInputStream(data)));
+                        packets.add(createMessagePacket(ByteBuffer.wrap(data)));
                     break;
                 case UPGRADE:
                     packets.add(createUpgradePacket());
@@ -0,0 +1,160 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import java.util.Arrays;
+
+/**
+ * Symbol table of event names which have listeners. Every registered name gets an index,
+ * so listeners could be kept in arrays instead of maps.
+ * <p/>
+ * Decoder looks incoming names up straight from the payload characters.
+ * Known names are not allocated again and come with their index.
+ * Names are only added by the server code, never by clients, so the table does not grow with traffic.
+ * <p/>
+ * Lookups are lock-free. Registration copies the table, it is expected to happen rarely.
+ */
+public final class EventNames
+{
+    private static final class Table
+    {
+        final String[] names; // by index
+        final int[]    slots; // open addressing hash table of index + 1, 0 for empty slot
+        final int      size;
+
+        Table(String[] names, int size)
+        {
+            this.names = names;
+            this.size  = size;
+
+            // at most half full
+            int capacity = Integer.highestOneBit(Math.max(size, 4)) * 4;
+            this.slots = new int[capacity];
+            for (int i = 0; i < size; i++)
+            {
+                int slot = names[i].hashCode() & (capacity - 1);
+                while (slots[slot] != 0)
+                    slot = (slot + 1) & (capacity - 1);
+                slots[slot] = i + 1;
+            }
+        }
+    }
+
+    private volatile Table table = new Table(new String[0], 0);
+
+    /**
+     * Adds the name to the table
+     *
+     * @param name event name
+     * @return index of the name. Same name always gets the same index
+     */
+    public synchronized int register(String name)
+    {
+        int index = indexOf(name);
+        if (index != -1)
+            return index;
+
+        Table t = table;
+        String[] names = Arrays.copyOf(t.names, t.size + 1);
+        names[t.size] = name;
+        table = new Table(names, t.size + 1);
+        return t.size;
+    }
+
+    /**
+     * @param name event name
+     * @return index of the name, -1 if the name is not registered
+     */
+    public int indexOf(String name)
+    {
+        Table t = table;
+        int mask = t.slots.length - 1;
+        for (int slot = name.hashCode() & mask; t.slots[slot] != 0; slot = (slot + 1) & mask)
+        {
+            int index = t.slots[slot] - 1;
+            if (t.names[index].equals(name))
+                return index;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the name without creating a String
+     *
+     * @param chars  array holding the name
+     * @param offset start of the name in the array
+     * @param length length of the name
+     * @return index of the name, -1 if the name is not registered
+     */
+    public int indexOf(char[] chars, int offset, int length)
+    {
+        // same hash as String.hashCode()
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++)
+            hash = 31 * hash + chars[i];
+
+        Table t = table;
+        int mask = t.slots.length - 1;
+        for (int slot = hash & mask; t.slots[slot] != 0; slot = (slot + 1) & mask)
+        {
+            int index = t.slots[slot] - 1;
+            if (matches(t.names[index], chars, offset, length))
+                return index;
+        }
+        return -1;
+    }
+
+    private static boolean matches(String name, char[] chars, int offset, int length)
+    {
+        if (name.length() != length)
+            return false;
+
+        for (int i = 0; i < length; i++)
+            if (name.charAt(i) != chars[offset + i])
+                return false;
+
+        return true;
+    }
+
+    /**
+     * @param index index of the name
+     * @return registered name
+     * @throws IndexOutOfBoundsException if there is no such index
+     */
+    public String getName(int index)
+    {
+        Table t = table;
+        if (index < 0 || index >= t.size)
+            throw new IndexOutOfBoundsException("No event name with index " + index);
+
+        return t.names[index];
+    }
+
+    /**
+     * @return number of registered names
+     */
+    public int size()
+    {
+        return table.size;
+    }
+}
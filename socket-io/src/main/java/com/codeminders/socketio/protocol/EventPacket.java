@@ -22,10 +22,9 @@
  */
 package com.codeminders.socketio.protocol;
 
-import com.codeminders.socketio.server.SocketIOProtocolException;
+import com.fasterxml.jackson.core.JsonGenerator;
 
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.IOException;
 
 /**
  * @author Alexander Sova (bird@codeminders.com)
@@ -34,6 +33,7 @@ public abstract class EventPacket extends SocketIOPacket
 {
     private String   name;
     private Object[] args;
+    private int      nameIndex = -1;
 
     protected EventPacket(Type type, int id, String ns, String name, Object[] args)
     {
@@ -47,6 +47,19 @@ public abstract class EventPacket extends SocketIOPacket
         return name;
     }
 
+    /**
+     * @return index of the name in {@link EventNames} of the namespace, -1 if unknown
+     */
+    public int getNameIndex()
+    {
+        return nameIndex;
+    }
+
+    void setNameIndex(int nameIndex)
+    {
+        this.nameIndex = nameIndex;
+    }
+
     public Object[] getArgs()
     {
         return args;
@@ -58,14 +71,18 @@ public abstract class EventPacket extends SocketIOPacket
     }
 
     @Override
-    protected String encodeArgs() throws SocketIOProtocolException
+    protected void encodeArgs(JsonGenerator gen) throws IOException
     {
-        // adding name of the event as a first argument
-        ArrayList<Object> data = new ArrayList<>();
-        data.add(getName());
-        data.addAll(Arrays.asList(getArgs()));
-
-        return SocketIOProtocol.toJSON(data.toArray());
+        // name of the event goes as a first argument
+        gen.writeStartArray();
+        gen.writeString(getName());
+        Object[] args = getArgs();
+        if (args.length == 1 && args[0] instanceof LazyArgs)
+            ((LazyArgs) args[0]).writeElements(gen);
+        else
+            for (Object arg : args)
+                gen.writeObject(arg);
+        gen.writeEndArray();
     }
 }
 
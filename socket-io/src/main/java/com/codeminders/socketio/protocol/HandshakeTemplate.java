@@ -0,0 +1,90 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import com.codeminders.socketio.server.SocketIOProtocolException;
+
+/**
+ * Engine.IO handshake (OPEN) packet with everything but the session id encoded in advance.
+ * Upgrades, ping interval and ping timeout are the same for all sessions of a transport,
+ * so only the session id is put into the packet for every new session.
+ *
+ * @see EngineIOProtocol#createHandshakeTemplate(String[], long, long)
+ */
+public final class HandshakeTemplate
+{
+    private static final String PREFIX = "{\"sid\":";
+
+    private final String suffix;
+
+    HandshakeTemplate(String[] upgrades, long pingInterval, long pingTimeout)
+            throws SocketIOProtocolException
+    {
+        this.suffix = ",\"upgrades\":" + SocketIOProtocol.toJSON(upgrades) +
+                ",\"pingInterval\":" + pingInterval +
+                ",\"pingTimeout\":" + pingTimeout + "}";
+    }
+
+    /**
+     * @param sessionId session id
+     * @return handshake packet for the session
+     */
+    public EngineIOPacket createPacket(String sessionId)
+    {
+        StringBuilder sb = new StringBuilder(PREFIX.length() + sessionId.length() + 2 + suffix.length());
+        sb.append(PREFIX);
+        if (isPlain(sessionId))
+            sb.append('"').append(sessionId).append('"');
+        else
+            sb.append(toJSON(sessionId));
+        sb.append(suffix);
+
+        return new EngineIOPacket(EngineIOPacket.Type.OPEN, sb.toString());
+    }
+
+    /**
+     * @return true if the string does not need escaping in JSON
+     */
+    private static boolean isPlain(String s)
+    {
+        for (int i = 0; i < s.length(); i++)
+        {
+            char ch = s.charAt(i);
+            if (ch < ' ' || ch == '"' || ch == '\\' || ch > '~')
+                return false;
+        }
+        return true;
+    }
+
+    private static String toJSON(String s)
+    {
+        try
+        {
+            return SocketIOProtocol.toJSON(s);
+        }
+        catch (SocketIOProtocolException e)
+        {
+            throw new IllegalArgumentException(e); // never happens for strings
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import com.codeminders.socketio.server.SocketIOProtocolException;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Default Socket.IO codec: text packets with JSON arguments followed by binary attachments.
+ * <p/>
+ * Transports encode packets for this codec directly into their reusable buffers,
+ * {@link #encode(SocketIOPacket)} is only used when Engine.IO packets are needed.
+ */
+public final class JsonPayloadCodec implements PayloadCodec
+{
+    public static final JsonPayloadCodec INSTANCE = new JsonPayloadCodec();
+
+    private JsonPayloadCodec()
+    {
+    }
+
+    @Override
+    public List<EngineIOPacket> encode(SocketIOPacket packet)
+            throws SocketIOProtocolException
+    {
+        List<EngineIOPacket> packets = new ArrayList<>(1);
+        packets.add(EngineIOProtocol.createMessagePacket(packet.encode()));
+        if (packet instanceof BinaryPacket)
+        {
+            for (InputStream is : ((BinaryPacket) packet).getAttachments())
+                packets.add(EngineIOProtocol.createMessagePacket(is));
+        }
+        return packets;
+    }
+
+    /**
+     * Packet format is the same in all protocol versions
+     *
+     * @return this codec
+     */
+    @Override
+    public PayloadCodec forProtocol(int protocolVersion)
+    {
+        return this;
+    }
+
+    @Override
+    public SocketIOPacket decode(CharSequence data, ArgumentTypeResolver resolver)
+            throws SocketIOProtocolException
+    {
+        return SocketIOProtocol.decode(data, resolver);
+    }
+
+    /**
+     * Binary messages are always attachments of the previous BINARY_EVENT or BINARY_ACK packet
+     *
+     * @return null
+     */
+    @Override
+    public SocketIOPacket decode(InputStream data, ArgumentTypeResolver resolver)
+    {
+        return null;
+    }
+}
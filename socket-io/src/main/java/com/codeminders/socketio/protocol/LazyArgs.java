@@ -0,0 +1,267 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import com.codeminders.socketio.server.SocketIOProtocolException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Event arguments kept as raw JSON text.
+ * An argument is parsed only when it is accessed, and once parsed it is cached.
+ * <p/>
+ * When the view is passed as the only argument of an emit it is sent as the event arguments,
+ * and the raw JSON of every argument is copied to the packet without being parsed and serialized again.
+ * Serialized as a part of another object the view is written as JSON array.
+ * <p/>
+ * The view is not thread safe.
+ */
+public final class LazyArgs implements JsonSerializable
+{
+    private static final Object NOT_DECODED = new Object();
+
+    private final CharSequence data;
+    private final int[]        bounds; // start and end of every argument in data
+    private final Object[]     values;
+
+    /**
+     * Creates the view over already decoded arguments
+     *
+     * @param args event arguments
+     */
+    public LazyArgs(Object[] args)
+    {
+        this.data = null;
+        this.bounds = null;
+        this.values = args;
+    }
+
+    private LazyArgs(CharSequence data, int[] bounds, int size)
+    {
+        this.data = data;
+        this.bounds = bounds;
+        this.values = new Object[size];
+        Arrays.fill(values, NOT_DECODED);
+    }
+
+    /**
+     * Finds the rest of JSON array elements without parsing them.
+     *
+     * @param data   packet text
+     * @param parser parser over {@code data} positioned inside of JSON array
+     * @param base   position in {@code data} of the parser char offset 0
+     * @return view over the elements
+     */
+    static LazyArgs index(CharSequence data, JsonParser parser, long base)
+            throws IOException
+    {
+        int[] bounds = new int[8];
+        int size = 0;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY)
+        {
+            if (token == null)
+                throw new SocketIOProtocolException("Unexpected end of JSON array");
+
+            int start = (int) (base + parser.getTokenLocation().getCharOffset());
+            if (size > 0)
+                bounds[size * 2 - 1] = trimSeparator(data, start);
+
+            if (size * 2 == bounds.length)
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            bounds[size * 2] = start;
+            size++;
+
+            parser.skipChildren();
+        }
+
+        if (size > 0)
+            bounds[size * 2 - 1] = trimSeparator(data, (int) (base + parser.getTokenLocation().getCharOffset()));
+
+        return new LazyArgs(data, bounds, size);
+    }
+
+    /**
+     * @return end of the element which is followed by whitespace and optional ',' up to {@code next}
+     */
+    private static int trimSeparator(CharSequence data, int next)
+    {
+        int end = next;
+        boolean separator = false;
+        while (end > 0)
+        {
+            char ch = data.charAt(end - 1);
+            if (ch == ',' && !separator)
+                separator = true;
+            else if (ch != ' ' && ch != '\t' && ch != '\n' && ch != '\r')
+                break;
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * @return number of arguments
+     */
+    public int size()
+    {
+        return values.length;
+    }
+
+    /**
+     * @param index argument index
+     * @return argument decoded as generic JSON (maps, lists, etc.)
+     * @throws SocketIOProtocolException if the argument is not valid JSON
+     */
+    public Object get(int index)
+            throws SocketIOProtocolException
+    {
+        Object value = values[index];
+        if (value == NOT_DECODED)
+        {
+            value = SocketIOProtocol.fromJSON(data, bounds[index * 2], bounds[index * 2 + 1], Object.class);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Reads the argument straight into the given type. The result is not cached.
+     *
+     * @param index argument index
+     * @param type  argument type
+     * @return argument
+     * @throws SocketIOProtocolException if the argument cannot be read into the type
+     */
+    public <T> T get(int index, Class<T> type)
+            throws SocketIOProtocolException
+    {
+        Object value = values[index];
+        if (value == NOT_DECODED)
+            return type.cast(SocketIOProtocol.fromJSON(data, bounds[index * 2], bounds[index * 2 + 1], type));
+
+        return SocketIOProtocol.convert(value, type);
+    }
+
+    /**
+     * @param index argument index
+     * @return raw JSON text of the argument
+     * @throws SocketIOProtocolException if the argument cannot be converted to JSON
+     */
+    public String getJSON(int index)
+            throws SocketIOProtocolException
+    {
+        if (data == null)
+            return SocketIOProtocol.toJSON(values[index]);
+
+        return data.subSequence(bounds[index * 2], bounds[index * 2 + 1]).toString();
+    }
+
+    /**
+     * @return all arguments decoded as generic JSON
+     * @throws SocketIOProtocolException if any argument is not valid JSON
+     */
+    public Object[] toArray()
+            throws SocketIOProtocolException
+    {
+        Object[] array = new Object[values.length];
+        for (int i = 0; i < array.length; i++)
+            array[i] = get(i);
+        return array;
+    }
+
+    /**
+     * @return arguments if the view was created over decoded arguments, null if arguments are raw JSON
+     */
+    Object[] getDecoded()
+    {
+        return data == null ? values : null;
+    }
+
+    /**
+     * Writes the arguments as elements of the current JSON array of the generator.
+     * Raw JSON is copied as is when the generator writes JSON text,
+     * other formats get the decoded arguments.
+     */
+    void writeElements(JsonGenerator gen)
+            throws IOException
+    {
+        boolean raw = data != null && SocketIOProtocol.isText(gen);
+        for (int i = 0; i < values.length; i++)
+        {
+            if (!raw)
+            {
+                gen.writeObject(get(i));
+                continue;
+            }
+
+            int start = bounds[i * 2];
+            int end = bounds[i * 2 + 1];
+            if (data instanceof CharSlice)
+            {
+                CharSlice slice = (CharSlice) data;
+                gen.writeRawValue(slice.array(), slice.offset() + start, end - start);
+            }
+            else
+            {
+                gen.writeRawValue(data.toString(), start, end - start);
+            }
+        }
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers)
+            throws IOException
+    {
+        gen.writeStartArray();
+        writeElements(gen);
+        gen.writeEndArray();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException
+    {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString()
+    {
+        if (data == null)
+            return Arrays.toString(values);
+
+        if (values.length == 0)
+            return "[]";
+
+        return "[" + data.subSequence(bounds[0], bounds[values.length * 2 - 1]) + "]";
+    }
+}
@@ -0,0 +1,358 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import com.codeminders.socketio.server.SocketIOProtocolException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Codec compatible with <a href="https://github.com/darrachequesne/socket.io-msgpack-parser">socket.io-msgpack-parser</a>.
+ * <p/>
+ * EVENT and ACK packets are sent as a single binary message, a MessagePack map
+ * {@code {type, data, nsp, id}}. Binary objects go inline, no attachments are used.
+ * CONNECT, DISCONNECT and ERROR packets are sent as the same map encoded as JSON text
+ * to Engine.IO 3 clients (parser 2.x) and as MessagePack to Engine.IO 4 clients (parser 3.x),
+ * see {@link #forProtocol(int)}.
+ * <p/>
+ * Binary objects received from the client are delivered to the listeners as {@link InputStream},
+ * same as with the default codec.
+ * <p/>
+ * Requires {@code org.msgpack:jackson-dataformat-msgpack} in the classpath.
+ */
+public final class MessagePackPayloadCodec implements PayloadCodec
+{
+    private final ObjectMapper            mapper;
+    private final boolean                 textControlPackets;
+    private final MessagePackPayloadCodec binaryCodec; // codec of Engine.IO 4 sessions
+
+    public MessagePackPayloadCodec()
+    {
+        this.mapper = new ObjectMapper(new MessagePackFactory());
+        this.textControlPackets = true;
+        this.binaryCodec = new MessagePackPayloadCodec(mapper);
+    }
+
+    private MessagePackPayloadCodec(ObjectMapper mapper)
+    {
+        this.mapper = mapper;
+        this.textControlPackets = false;
+        this.binaryCodec = this;
+    }
+
+    /**
+     * @return codec sending all packets as MessagePack for {@link EngineIOProtocol#PROTOCOL_V4} and later,
+     *         this codec otherwise
+     */
+    @Override
+    public PayloadCodec forProtocol(int protocolVersion)
+    {
+        return protocolVersion >= EngineIOProtocol.PROTOCOL_V4 ? binaryCodec : this;
+    }
+
+    @Override
+    public List<EngineIOPacket> encode(SocketIOPacket packet)
+            throws SocketIOProtocolException
+    {
+        try
+        {
+            if (textControlPackets && isControlPacket(packet.getType()))
+            {
+                StringWriter writer = new StringWriter();
+                try (JsonGenerator gen = SocketIOProtocol.createGenerator(writer))
+                {
+                    encode(gen, packet);
+                }
+                return Collections.singletonList(EngineIOProtocol.createMessagePacket(writer.toString()));
+            }
+
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            try (JsonGenerator gen = mapper.getFactory().createGenerator(os))
+            {
+                encode(gen, packet);
+            }
+            return Collections.singletonList(
+                    EngineIOProtocol.createMessagePacket(ByteBuffer.wrap(os.toByteArray())));
+        }
+        catch (SocketIOProtocolException e)
+        {
+            throw e;
+        }
+        catch (IOException e)
+        {
+            throw new SocketIOProtocolException("Cannot encode packet", e);
+        }
+    }
+
+    private static boolean isControlPacket(SocketIOPacket.Type type)
+    {
+        return type == SocketIOPacket.Type.CONNECT ||
+                type == SocketIOPacket.Type.DISCONNECT ||
+                type == SocketIOPacket.Type.ERROR;
+    }
+
+    @Override
+    public SocketIOPacket decode(CharSequence data, ArgumentTypeResolver resolver)
+            throws SocketIOProtocolException
+    {
+        Object packet = SocketIOProtocol.fromJSON(data.toString());
+        if (!(packet instanceof Map))
+            throw new SocketIOProtocolException("Invalid packet: " + data);
+
+        return decode((Map<?, ?>) packet, resolver);
+    }
+
+    @Override
+    public SocketIOPacket decode(InputStream data, ArgumentTypeResolver resolver)
+            throws SocketIOProtocolException
+    {
+        Object packet;
+        try
+        {
+            packet = mapper.readValue(data, Object.class);
+        }
+        catch (IOException e)
+        {
+            throw new SocketIOProtocolException("Cannot parse MessagePack", e);
+        }
+
+        if (!(packet instanceof Map))
+            throw new SocketIOProtocolException("Invalid packet, MessagePack map is expected");
+
+        return decode((Map<?, ?>) packet, resolver);
+    }
+
+    private static void encode(JsonGenerator gen, SocketIOPacket packet)
+            throws IOException
+    {
+        SocketIOPacket.Type type = packet.getType();
+        if (type == SocketIOPacket.Type.BINARY_EVENT)
+            type = SocketIOPacket.Type.EVENT;
+        else if (type == SocketIOPacket.Type.BINARY_ACK)
+            type = SocketIOPacket.Type.ACK;
+
+        gen.writeStartObject();
+        gen.writeNumberField("type", type.value());
+        if (packet.hasArgs())
+        {
+            gen.writeFieldName("data");
+            encodeData(gen, packet);
+        }
+        gen.writeStringField("nsp", packet.getNamespace());
+        if (packet.getId() >= 0)
+            gen.writeNumberField("id", packet.getId());
+        gen.writeEndObject();
+    }
+
+    private static void encodeData(JsonGenerator gen, SocketIOPacket packet)
+            throws IOException
+    {
+        List<byte[]> attachments = Collections.emptyList();
+        if (packet instanceof BinaryPacket)
+        {
+            attachments = new ArrayList<>();
+            for (InputStream is : ((BinaryPacket) packet).getAttachments())
+                attachments.add(ByteStreams.toByteArray(is));
+        }
+
+        if (packet instanceof EventPacket)
+        {
+            EventPacket event = (EventPacket) packet;
+            gen.writeStartArray();
+            gen.writeString(event.getName());
+            Object[] args = event.getArgs();
+            if (args.length == 1 && args[0] instanceof LazyArgs)
+                args = ((LazyArgs) args[0]).toArray();
+            for (Object arg : args)
+                encodeValue(gen, arg, attachments);
+            gen.writeEndArray();
+        }
+        else if (packet instanceof ACKPacket)
+        {
+            encodeValue(gen, ((ACKPacket) packet).getArgs(), attachments);
+        }
+        else
+        {
+            packet.encodeArgs(gen);
+        }
+    }
+
+    /**
+     * Writes the value replacing attachment placeholders with the binary data
+     */
+    private static void encodeValue(JsonGenerator gen, Object value, List<byte[]> attachments)
+            throws IOException
+    {
+        if (!attachments.isEmpty())
+        {
+            if (value instanceof Object[])
+            {
+                gen.writeStartArray();
+                for (Object o : (Object[]) value)
+                    encodeValue(gen, o, attachments);
+                gen.writeEndArray();
+                return;
+            }
+
+            if (value instanceof Collection)
+            {
+                gen.writeStartArray();
+                for (Object o : (Collection<?>) value)
+                    encodeValue(gen, o, attachments);
+                gen.writeEndArray();
+                return;
+            }
+
+            if (value instanceof Map)
+            {
+                Map<?, ?> map = (Map<?, ?>) value;
+                int index = SocketIOProtocol.getPlaceholderIndex(map);
+                if (index >= 0)
+                {
+                    if (index >= attachments.size())
+                        throw new SocketIOProtocolException("No attachment found for a placeholder: " + index);
+
+                    gen.writeBinary(attachments.get(index));
+                    return;
+                }
+
+                gen.writeStartObject();
+                for (Map.Entry<?, ?> e : map.entrySet())
+                {
+                    gen.writeFieldName(String.valueOf(e.getKey()));
+                    encodeValue(gen, e.getValue(), attachments);
+                }
+                gen.writeEndObject();
+                return;
+            }
+        }
+
+        gen.writeObject(value);
+    }
+
+    private static SocketIOPacket decode(Map<?, ?> packet, ArgumentTypeResolver resolver)
+            throws SocketIOProtocolException
+    {
+        Object type = packet.get("type");
+        if (!(type instanceof Number))
+            throw new SocketIOProtocolException("Invalid packet type: " + type);
+
+        Object nsp = packet.get("nsp");
+        String ns = nsp instanceof String ? (String) nsp : SocketIOProtocol.DEFAULT_NAMESPACE;
+
+        Object packetId = packet.get("id");
+        int id = packetId instanceof Number ? ((Number) packetId).intValue() : -1;
+
+        Object data = packet.get("data");
+
+        switch (SocketIOPacket.Type.fromInt(((Number) type).intValue()))
+        {
+            case CONNECT:
+                return SocketIOProtocol.createConnectPacket(ns, data);
+
+            case DISCONNECT:
+                return SocketIOProtocol.createDisconnectPacket(ns);
+
+            case EVENT:
+            {
+                if (!(data instanceof List) || ((List<?>) data).isEmpty())
+                    throw new SocketIOProtocolException("Missing event name");
+
+                List<?> list = (List<?>) data;
+                String name = String.valueOf(list.get(0));
+                Object[] args = new Object[list.size() - 1];
+                for (int i = 0; i < args.length; i++)
+                    args[i] = list.get(i + 1);
+
+                Class<?> argType = null;
+                if (resolver != null && args.length > 0)
+                    argType = resolver.getArgumentType(ns, name);
+
+                // there is no JSON text to keep, lazy listeners get decoded arguments
+                if (argType == LazyArgs.class)
+                    argType = null;
+
+                for (int i = 0; i < args.length; i++)
+                {
+                    if (i == 0 && argType != null)
+                        args[i] = SocketIOProtocol.convert(args[i], argType);
+                    else
+                        args[i] = wrapBinary(args[i]);
+                }
+
+                return new SocketIOProtocol.PlainEventPacket(id, ns, name, args);
+            }
+
+            case ACK:
+            {
+                if (!(data instanceof List))
+                    throw new SocketIOProtocolException("Array payload is expected");
+
+                Object[] args = ((List<?>) data).toArray();
+                for (int i = 0; i < args.length; i++)
+                    args[i] = wrapBinary(args[i]);
+
+                return new SocketIOProtocol.PlainACKPacket(id, ns, args);
+            }
+
+            case ERROR:
+                return SocketIOProtocol.createErrorPacket(ns, data);
+
+            default:
+                throw new SocketIOProtocolException("Unexpected packet type: " + type);
+        }
+    }
+
+    /**
+     * Replaces binary data in the decoded object with {@link InputStream}.
+     * Maps and lists are modified in place.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object wrapBinary(Object value)
+    {
+        if (value instanceof byte[])
+            return new ByteBufferInputStream((byte[]) value);
+
+        if (value instanceof Map)
+        {
+            for (Map.Entry<Object, Object> e : ((Map<Object, Object>) value).entrySet())
+                e.setValue(wrapBinary(e.getValue()));
+        }
+        else if (value instanceof List)
+        {
+            for (ListIterator<Object> it = ((List<Object>) value).listIterator(); it.hasNext(); )
+                it.set(wrapBinary(it.next()));
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import com.codeminders.socketio.server.SocketIOProtocolException;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Converts Socket.IO packets to Engine.IO messages and back.
+ * <p/>
+ * Codec must match the parser used by the client. The client uses the same parser for all
+ * namespaces of a connection, so the codec is selected for the whole server,
+ * see {@link com.codeminders.socketio.server.SocketIOManager#setPayloadCodec(PayloadCodec)}.
+ * Parsers of different protocol versions could differ, every session uses the codec
+ * returned by {@link #forProtocol(int)} for its version.
+ * <p/>
+ * Implementations must be thread safe.
+ */
+public interface PayloadCodec
+{
+    /**
+     * Encodes the packet as Engine.IO MESSAGE packets in the order they have to be sent
+     *
+     * @param packet packet to encode
+     * @return list of MESSAGE packets
+     * @throws SocketIOProtocolException if packet cannot be encoded
+     */
+    List<EngineIOPacket> encode(SocketIOPacket packet)
+            throws SocketIOProtocolException;
+
+    /**
+     * @param protocolVersion Engine.IO protocol version of the session
+     * @return codec for sessions of the protocol version, could be this codec
+     */
+    PayloadCodec forProtocol(int protocolVersion);
+
+    /**
+     * Decodes text message
+     *
+     * @param data     text message
+     * @param resolver resolver of event argument types, could be null
+     * @return decoded packet
+     * @throws SocketIOProtocolException if message is malformed
+     */
+    SocketIOPacket decode(CharSequence data, ArgumentTypeResolver resolver)
+            throws SocketIOProtocolException;
+
+    /**
+     * Decodes binary message
+     *
+     * @param data     binary message
+     * @param resolver resolver of event argument types, could be null
+     * @return decoded packet, null if the message is a binary attachment of the previous packet
+     * @throws SocketIOProtocolException if message is malformed
+     */
+    SocketIOPacket decode(InputStream data, ArgumentTypeResolver resolver)
+            throws SocketIOProtocolException;
+}
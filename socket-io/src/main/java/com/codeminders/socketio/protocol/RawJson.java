@@ -0,0 +1,96 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * Already serialized JSON value to be sent as an event argument, or as a part of one.
+ * The text is copied into the packet as is, without being parsed and serialized again.
+ * <p/>
+ * The text is not validated, sending invalid JSON produces a packet the client cannot read.
+ * Payload codecs which do not produce JSON text parse the value before writing it.
+ */
+public final class RawJson implements JsonSerializable
+{
+    private final String json;
+
+    /**
+     * @param json serialized JSON value
+     */
+    public RawJson(String json)
+    {
+        if (json == null)
+            throw new NullPointerException("json");
+
+        this.json = json;
+    }
+
+    /**
+     * @return serialized JSON value
+     */
+    public String getJSON()
+    {
+        return json;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers)
+            throws IOException
+    {
+        if (SocketIOProtocol.isText(gen))
+            gen.writeRawValue(json);
+        else
+            gen.writeObject(SocketIOProtocol.fromJSON(json));
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException
+    {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof RawJson && json.equals(((RawJson) o).json);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return json.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return json;
+    }
+}
@@ -23,6 +23,12 @@
 package com.codeminders.socketio.protocol;
 
 import com.codeminders.socketio.server.SocketIOProtocolException;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
 
 /**
  * @author Alexander Sova (bird@codeminders.com)
@@ -87,19 +93,25 @@ public abstract class SocketIOPacket
         return id;
     }
 
-    protected abstract String encodeArgs() throws SocketIOProtocolException;
-
-    protected String encodeAttachments()
+    /**
+     * Writes packet arguments as JSON
+     *
+     * @param gen JSON generator to write to
+     * @throws IOException if arguments cannot be converted to JSON
+     */
+    protected abstract void encodeArgs(JsonGenerator gen) throws IOException;
+
+    /**
+     * @return false if packet has no arguments and {@link #encodeArgs(JsonGenerator)} writes nothing
+     */
+    protected boolean hasArgs()
     {
-        return "";
+        return true;
     }
 
-    private String encodePacketId()
+    protected String encodeAttachments()
     {
-        if(id < 0)
-            return "";
-
-        return String.valueOf(id);
+        return "";
     }
 
     protected SocketIOPacket(Type type)
@@ -121,15 +133,68 @@ public abstract class SocketIOPacket
 
     public String encode() throws SocketIOProtocolException
     {
-        String str = String.valueOf(type.value());
-
-        String tail = encodePacketId() + encodeArgs();
+        StringWriter writer = new StringWriter();
+        try
+        {
+            encode(writer);
+        }
+        catch (SocketIOProtocolException e)
+        {
+            throw e;
+        }
+        catch (IOException e)
+        {
+            throw new SocketIOProtocolException("Cannot convert object to JSON", e);
+        }
+        return writer.toString();
+    }
 
-        str += encodeAttachments();
-        str += SocketIOProtocol.encodeNamespace(namespace, !tail.isEmpty());
-        str += tail;
+    /**
+     * Encodes the packet as text straight into {@code writer}
+     *
+     * @param writer writer to encode the packet to. It is not closed by this method
+     * @throws IOException if packet cannot be encoded or written
+     */
+    public void encode(Writer writer) throws IOException
+    {
+        try (JsonGenerator gen = SocketIOProtocol.createGenerator(writer))
+        {
+            encode(gen);
+        }
+    }
 
-        return str;
+    /**
+     * Encodes the packet as UTF-8 text straight into {@code os}
+     *
+     * @param os stream to encode the packet to. It is not closed by this method
+     * @throws IOException if packet cannot be encoded or written
+     */
+    public void encode(OutputStream os) throws IOException
+    {
+        try (JsonGenerator gen = SocketIOProtocol.createGenerator(os))
+        {
+            encode(gen);
+        }
     }
 
+    private void encode(JsonGenerator gen) throws IOException
+    {
+        gen.writeRaw((char) ('0' + type.value()));
+
+        String attachments = encodeAttachments();
+        if (!attachments.isEmpty())
+            gen.writeRaw(attachments);
+
+        if (!namespace.equals(SocketIOProtocol.DEFAULT_NAMESPACE))
+        {
+            gen.writeRaw(namespace);
+            if (id >= 0 || hasArgs())
+                gen.writeRaw(SocketIOProtocol.NAMESPACE_DELIMITER);
+        }
+
+        if (id >= 0)
+            gen.writeRaw(String.valueOf(id));
+
+        encodeArgs(gen);
+    }
 }
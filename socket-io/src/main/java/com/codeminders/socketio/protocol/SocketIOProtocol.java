@@ -23,16 +23,26 @@
 package com.codeminders.socketio.protocol;
 
 import com.codeminders.socketio.server.SocketIOProtocolException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.text.DecimalFormat;
-import java.text.ParsePosition;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -49,13 +59,23 @@ public final class SocketIOProtocol
     private static final ObjectMapper mapper = new ObjectMapper();
     static {
         mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        // packets are written one after another into transport streams.
+        // flushing and closing the stream is up to the transport
+        mapper.configure(SerializationFeature.FLUSH_AFTER_WRITE_VALUE, false);
+        mapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        mapper.getFactory().disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
     }
+    private static final ObjectReader objectReader = mapper.readerFor(Object.class);
+
+    private static final ConcurrentMap<Class<?>, ObjectReader> typedReaders = new ConcurrentHashMap<>();
+
+    private static final Object[] EMPTY_ARRAY = new Object[0];
 
     public static final String DEFAULT_NAMESPACE = "/";
 
-    private static final String ATTACHMENTS_DELIMITER = "-";
-    private static final String NAMESPACE_PREFIX      = "/";
-    static final String NAMESPACE_DELIMITER   = ",";
+    private static final char ATTACHMENTS_DELIMITER = '-';
+    private static final char NAMESPACE_PREFIX      = '/';
+    static final char NAMESPACE_DELIMITER   = ',';
 
     private SocketIOProtocol()
     {
@@ -69,13 +89,18 @@ public final class SocketIOProtocol
         }
 
         @Override
-        protected String encodeArgs()
+        protected boolean hasArgs()
+        {
+            return false;
+        }
+
+        @Override
+        protected void encodeArgs(JsonGenerator gen)
         {
-            return "";
         }
     }
 
-    private static class PlainACKPacket extends ACKPacket
+    static class PlainACKPacket extends ACKPacket
     {
         public PlainACKPacket(int id, String ns, Object[] args)
         {
@@ -83,7 +108,7 @@ public final class SocketIOProtocol
         }
     }
 
-    private static class PlainEventPacket extends EventPacket
+    static class PlainEventPacket extends EventPacket
     {
         public PlainEventPacket(int id, String ns, String name, Object[] args)
         {
@@ -91,7 +116,22 @@ public final class SocketIOProtocol
         }
     }
 
-    public static SocketIOPacket decode(String data)
+    public static SocketIOPacket decode(CharSequence data)
+            throws SocketIOProtocolException
+    {
+        return decode(data, null);
+    }
+
+    /**
+     * Decodes Socket.IO packet
+     *
+     * @param data     encoded packet
+     * @param resolver resolver of event argument types, could be null.
+     *                 Only used for EVENT packets, BINARY_EVENT arguments are always decoded as generic JSON
+     * @return decoded packet
+     * @throws SocketIOProtocolException if packet is malformed or argument cannot be read into the requested type
+     */
+    public static SocketIOPacket decode(CharSequence data, ArgumentTypeResolver resolver)
             throws SocketIOProtocolException
     {
         assert (data != null);
@@ -101,67 +141,169 @@ public final class SocketIOProtocol
 
         try
         {
-            ParsePosition pos = new ParsePosition(0);
-            SocketIOPacket.Type type = decodePacketType(data, pos);
+            final int len = data.length();
+            int pos = 0;
+
+            // packet type, always a single digit
+            char ch = data.charAt(pos++);
+            if (!isDigit(ch))
+                throw new SocketIOProtocolException("Invalid packet type: " + ch);
+            SocketIOPacket.Type type = SocketIOPacket.Type.fromInt(ch - '0');
 
+            // number of binary attachments followed by '-' delimiter
             int attachments = 0;
             if (type == SocketIOPacket.Type.BINARY_ACK || type == SocketIOPacket.Type.BINARY_EVENT)
-                attachments = decodeAttachments(data, pos);
-
-            String ns = decodeNamespace(data, pos);
-            int packet_id = decodePacketId(data, pos);
-            Object json = decodeArgs(data, pos);
-
-            List args = null;
-            String eventName = "";
-            if (type == SocketIOPacket.Type.EVENT ||
-                type == SocketIOPacket.Type.BINARY_EVENT ||
-                type == SocketIOPacket.Type.ACK ||
-                type == SocketIOPacket.Type.BINARY_ACK)
             {
-                if (!(json instanceof List))
-                    throw new SocketIOProtocolException("Array payload is expected");
+                long n = 0;
+                int start = pos;
+                while (pos < len && isDigit(ch = data.charAt(pos)))
+                {
+                    n = n * 10 + (ch - '0');
+                    if (n > Integer.MAX_VALUE)
+                        throw new SocketIOProtocolException("Too many attachments in BINARY packet: " + data);
+                    pos++;
+                }
+                if (pos == start || n == 0)
+                    throw new SocketIOProtocolException("No attachments defined in BINARY packet: " + data);
+                if (pos == len || data.charAt(pos) != ATTACHMENTS_DELIMITER)
+                    throw new SocketIOProtocolException("Missing attachments delimiter in BINARY packet: " + data);
 
-                args = (List)json;
+                attachments = (int) n;
+                pos++; //skipping '-' delimiter
+            }
 
-                if (type == SocketIOPacket.Type.EVENT || type == SocketIOPacket.Type.BINARY_EVENT)
+            // namespace, if present, starts with '/' and ends with ',' delimiter or end of packet
+            String ns = DEFAULT_NAMESPACE;
+            if (pos < len && data.charAt(pos) == NAMESPACE_PREFIX)
+            {
+                int end = pos + 1;
+                while (end < len && data.charAt(end) != NAMESPACE_DELIMITER)
+                    end++;
+
+                if (end - pos > 1)
+                    ns = data.subSequence(pos, end).toString();
+                pos = end + 1;
+            }
+
+            // optional packet id
+            int packet_id = -1;
+            if (pos < len && isDigit(data.charAt(pos)))
+            {
+                long id = 0;
+                while (pos < len && isDigit(ch = data.charAt(pos)))
                 {
-                    if (args.size() == 0)
-                        throw new SocketIOProtocolException("Missing event name");
-                    eventName = args.get(0).toString();
-                    args.remove(0);
+                    id = id * 10 + (ch - '0');
+                    if (id > Integer.MAX_VALUE)
+                        throw new SocketIOProtocolException("Invalid packet id: " + data);
+                    pos++;
                 }
+                packet_id = (int) id;
+            }
+
+            Object   json      = null;
+            Object[] args      = null;
+            String   eventName = "";
+            int      nameIndex = -1;
+            switch (type)
+            {
+                case EVENT:
+                case BINARY_EVENT:
+                case ACK:
+                case BINARY_ACK:
+                    try (JsonParser parser = createParser(data, pos))
+                    {
+                        if (parser.nextToken() != JsonToken.START_ARRAY)
+                            throw new SocketIOProtocolException("Array payload is expected");
+                        long base = getBase(data, pos, parser);
+
+                        if (type == SocketIOPacket.Type.EVENT || type == SocketIOPacket.Type.BINARY_EVENT)
+                        {
+                            JsonToken token = parser.nextToken();
+                            if (token == null || token == JsonToken.END_ARRAY)
+                                throw new SocketIOProtocolException("Missing event name");
+
+                            EventNames names = resolver == null ? null : resolver.getEventNames(ns);
+                            if (token == JsonToken.VALUE_STRING && names != null)
+                                nameIndex = names.indexOf(parser.getTextCharacters(),
+                                        parser.getTextOffset(), parser.getTextLength());
+
+                            if (nameIndex != -1)
+                                eventName = names.getName(nameIndex);
+                            else if (token == JsonToken.VALUE_STRING)
+                                eventName = parser.getText();
+                            else if (token == JsonToken.VALUE_NULL)
+                                throw new SocketIOProtocolException("Missing event name");
+                            else
+                                eventName = String.valueOf(objectReader.readValue(parser));
+                        }
+
+                        Class<?> argType = null;
+                        if (resolver != null && type == SocketIOPacket.Type.EVENT)
+                            argType = resolver.getArgumentType(ns, eventName);
+
+                        if (argType == LazyArgs.class)
+                            args = new Object[] { LazyArgs.index(data, parser, base) };
+                        else
+                            args = decodeArray(parser, argType == null ? objectReader : getReader(argType));
+                    }
+                    catch (SocketIOProtocolException e)
+                    {
+                        throw e;
+                    }
+                    catch (IOException e)
+                    {
+                        throw new SocketIOProtocolException("Cannot parse JSON", e);
+                    }
+                    break;
+
+                default:
+                    json = decodeArgs(data, pos);
             }
 
             switch (type)
             {
                 case CONNECT:
-                    return createConnectPacket(ns);
+                    return createConnectPacket(ns, json);
 
                 case DISCONNECT:
                     return createDisconnectPacket(ns);
 
                 case EVENT:
-                    return new PlainEventPacket(packet_id, ns, eventName, args.toArray());
+                {
+                    PlainEventPacket packet = new PlainEventPacket(packet_id, ns, eventName, args);
+                    packet.setNameIndex(nameIndex);
+                    return packet;
+                }
 
                 case ACK:
-                    return new PlainACKPacket(packet_id, ns, args.toArray());
+                    return new PlainACKPacket(packet_id, ns, args);
 
                 case ERROR:
                     return createErrorPacket(ns, json);
 
                 case BINARY_EVENT:
-                    return new BinaryEventPacket(packet_id, ns, eventName, args.toArray(), attachments);
+                {
+                    // the declared number of attachments is checked against the placeholders before it is used
+                    AttachmentSlots slots = AttachmentSlots.index(args, attachments);
+                    BinaryEventPacket packet = new BinaryEventPacket(packet_id, ns, eventName, args, attachments);
+                    packet.setNameIndex(nameIndex);
+                    packet.setAttachmentSlots(slots);
+                    return packet;
+                }
 
                 case BINARY_ACK:
-                    assert (args != null); //just to make IDEA to shut up about possible NPE
-                    return new BinaryACKPacket(packet_id, ns, args.toArray(), attachments);
+                {
+                    AttachmentSlots slots = AttachmentSlots.index(args, attachments);
+                    BinaryACKPacket packet = new BinaryACKPacket(packet_id, ns, args, attachments);
+                    packet.setAttachmentSlots(slots);
+                    return packet;
+                }
 
                 default:
                     throw new SocketIOProtocolException("Unsupported packet type " + type);
             }
         }
-        catch (NumberFormatException | SocketIOProtocolException e)
+        catch (SocketIOProtocolException e)
         {
             if (LOGGER.isLoggable(Level.WARNING))
                 LOGGER.log(Level.WARNING, "Invalid SIO packet: " + data, e);
@@ -175,10 +317,10 @@ public final class SocketIOProtocol
         return new SocketIOPacket(SocketIOPacket.Type.ERROR, namespace)
         {
             @Override
-            protected String encodeArgs()
-                    throws SocketIOProtocolException
+            protected void encodeArgs(JsonGenerator gen)
+                    throws IOException
             {
-                return toJSON(args);
+                gen.writeObject(args);
             }
         };
     }
@@ -188,18 +330,26 @@ public final class SocketIOProtocol
      * on the content of args parameter.
      * If args has any InputStream inside then SockeIOBinaryEventPacket will be created
      */
-    public static SocketIOPacket createEventPacket(int packet_id, String ns, String name, Object[] args)
+    public static EventPacket createEventPacket(int packet_id, String ns, String name, Object[] args)
     {
-        if (hasBinary(args))
-            return new BinaryEventPacket(packet_id, ns, name, args);
+        // decoded lazy arguments could have binary objects inside, raw JSON never does
+        if (args.length == 1 && args[0] instanceof LazyArgs && ((LazyArgs) args[0]).getDecoded() != null)
+            args = ((LazyArgs) args[0]).getDecoded();
+
+        List<InputStream> attachments = new ArrayList<>(0);
+        Object[] json = (Object[]) extractBinaryObjects(args, attachments);
+        if (!attachments.isEmpty())
+            return new BinaryEventPacket(packet_id, ns, name, json, attachments);
         else
             return new PlainEventPacket(packet_id, ns, name, args);
     }
 
-    public static SocketIOPacket createACKPacket(int id, String ns, Object[] args)
+    public static ACKPacket createACKPacket(int id, String ns, Object[] args)
     {
-        if (hasBinary(args))
-            return new BinaryACKPacket(id, ns, args);
+        List<InputStream> attachments = new ArrayList<>(0);
+        Object[] json = (Object[]) extractBinaryObjects(args, attachments);
+        if (!attachments.isEmpty())
+            return new BinaryACKPacket(id, ns, json, attachments);
         else
             return new PlainACKPacket(id, ns, args);
     }
@@ -211,7 +361,32 @@ public final class SocketIOProtocol
 
     public static SocketIOPacket createConnectPacket(String ns)
     {
-        return new EmptyPacket(SocketIOPacket.Type.CONNECT, ns);
+        return new ConnectPacket(ns, null);
+    }
+
+    /**
+     * @param ns   namespace
+     * @param args packet data, could be null. Used since protocol 5
+     * @return CONNECT packet
+     */
+    public static ConnectPacket createConnectPacket(String ns, Object args)
+    {
+        return new ConnectPacket(ns, args);
+    }
+
+    /**
+     * Creates CONNECT_ERROR packet of protocol 5 which carries an object with the error message
+     *
+     * @param ns   namespace
+     * @param args error object, or the message
+     * @return ERROR packet
+     */
+    public static SocketIOPacket createConnectErrorPacket(String ns, Object args)
+    {
+        if (args instanceof Map)
+            return createErrorPacket(ns, args);
+
+        return createErrorPacket(ns, Collections.singletonMap("message", String.valueOf(args)));
     }
 
     static String toJSON(Object o)
@@ -227,6 +402,32 @@ public final class SocketIOProtocol
         }
     }
 
+    /**
+     * Creates JSON generator writing to {@code writer}. The writer is not closed with the generator
+     */
+    static JsonGenerator createGenerator(Writer writer)
+            throws IOException
+    {
+        return mapper.getFactory().createGenerator(writer);
+    }
+
+    /**
+     * Creates JSON generator writing UTF-8 to {@code os}. The stream is not closed with the generator
+     */
+    static JsonGenerator createGenerator(OutputStream os)
+            throws IOException
+    {
+        return mapper.getFactory().createGenerator(os, JsonEncoding.UTF8);
+    }
+
+    /**
+     * @return true if the generator writes JSON text and raw JSON could be written to it
+     */
+    static boolean isText(JsonGenerator gen)
+    {
+        return gen instanceof JsonGeneratorImpl;
+    }
+
     static Object fromJSON(String s)
             throws SocketIOProtocolException
     {
@@ -243,70 +444,157 @@ public final class SocketIOProtocol
         }
     }
 
-    static String decodeNamespace(String data, ParsePosition pos)
+    /**
+     * Reads a part of {@code data} as JSON
+     *
+     * @param data  text containing JSON
+     * @param start start of JSON in the text
+     * @param end   end of JSON in the text
+     * @param type  type to read JSON into
+     * @return JSON object
+     * @throws SocketIOProtocolException if text is not valid JSON or cannot be read into the type
+     */
+    static Object fromJSON(CharSequence data, int start, int end, Class<?> type)
+            throws SocketIOProtocolException
     {
-        String ns = DEFAULT_NAMESPACE;
-        if (data.startsWith(NAMESPACE_PREFIX, pos.getIndex()))
+        ObjectReader reader = type == Object.class ? objectReader : getReader(type);
+        try
         {
-            int idx = data.indexOf(NAMESPACE_DELIMITER, pos.getIndex());
-            if (idx < 0)
-            {
-                ns = data.substring(pos.getIndex());
-                pos.setIndex(data.length());
-            }
-            else
+            if (data instanceof CharSlice)
             {
-                ns = data.substring(pos.getIndex(), idx);
-                pos.setIndex(idx + 1);
+                CharSlice slice = (CharSlice) data;
+                try (JsonParser parser = mapper.getFactory().createParser(slice.array(), slice.offset() + start, end - start))
+                {
+                    return reader.readValue(parser);
+                }
             }
+
+            return reader.readValue(data.subSequence(start, end).toString());
         }
-        return ns;
+        catch (IOException e)
+        {
+            throw new SocketIOProtocolException("Cannot parse JSON", e);
+        }
+    }
+
+    private static ObjectReader getReader(Class<?> type)
+    {
+        ObjectReader reader = typedReaders.get(type);
+        if (reader == null)
+        {
+            reader = mapper.readerFor(type);
+            ObjectReader existing = typedReaders.putIfAbsent(type, reader);
+            if (existing != null)
+                reader = existing;
+        }
+        return reader;
     }
 
-    static int decodeAttachments(String data, ParsePosition pos)
+    /**
+     * Converts decoded JSON object (maps, lists, etc.) into the given type
+     *
+     * @param value decoded JSON object
+     * @param type  target type
+     * @return converted object
+     * @throws SocketIOProtocolException if the object cannot be converted
+     */
+    public static <T> T convert(Object value, Class<T> type)
             throws SocketIOProtocolException
     {
-        Number n = new DecimalFormat("#").parse(data, pos);
-        if (n == null || n.intValue() == 0)
-            throw new SocketIOProtocolException("No attachments defined in BINARY packet: " + data);
+        if (value == null || type.isInstance(value))
+            return type.cast(value);
 
-        pos.setIndex(pos.getIndex() + 1); //skipping '-' delimiter
+        try
+        {
+            return mapper.convertValue(value, type);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new SocketIOProtocolException("Cannot convert argument to " + type.getName(), e);
+        }
+    }
 
-        return n.intValue();
+    private static boolean isDigit(char ch)
+    {
+        return ch >= '0' && ch <= '9';
     }
 
-    static int decodePacketId(String data, ParsePosition pos)
+    /**
+     * Creates JSON parser reading {@code data} starting from {@code pos}
+     * without copying the tail of the data
+     */
+    private static JsonParser createParser(CharSequence data, int pos)
+            throws IOException
     {
-        Number id = new DecimalFormat("#").parse(data, pos);
-        if (id == null)
-            return -1;
+        if (data instanceof CharSlice)
+        {
+            CharSlice slice = (CharSlice) data;
+            return mapper.getFactory().createParser(slice.array(), slice.offset() + pos, slice.length() - pos);
+        }
+
+        if (data instanceof String)
+        {
+            StringReader reader = new StringReader((String) data);
+            reader.skip(pos);
+            return mapper.getFactory().createParser(reader);
+        }
 
-        return id.intValue();
+        return mapper.getFactory().createParser(data.subSequence(pos, data.length()).toString());
     }
 
-    static SocketIOPacket.Type decodePacketType(String data, ParsePosition pos)
-            throws SocketIOProtocolException
+    /**
+     * @param data   text the parser reads
+     * @param pos    position in the text the parser started from
+     * @param parser parser which has just read the first token of the data
+     * @return position in {@code data} of the parser char offset 0
+     */
+    private static long getBase(CharSequence data, int pos, JsonParser parser)
     {
-        int idx = pos.getIndex();
-        SocketIOPacket.Type type = SocketIOPacket.Type.fromInt(Integer.parseInt(data.substring(idx, idx + 1)));
-        pos.setIndex(idx + 1);
-        return type;
+        // char offsets of parsers over arrays and readers count from different points,
+        // so the offset is matched against the first token position found in the data
+        while (pos < data.length() && Character.isWhitespace(data.charAt(pos)))
+            pos++;
+
+        return pos - parser.getTokenLocation().getCharOffset();
     }
 
-    //TODO: pass what type (Array, Map, Object) is expected?
-    static Object decodeArgs(String data, ParsePosition pos)
-            throws SocketIOProtocolException
+    /**
+     * Reads the rest of JSON array the parser is positioned in
+     *
+     * @param parser         parser positioned inside of JSON array
+     * @param firstArgReader reader for the first element of the rest of the array
+     * @return array elements
+     */
+    private static Object[] decodeArray(JsonParser parser, ObjectReader firstArgReader)
+            throws IOException
     {
-        Object json = fromJSON(data.substring(pos.getIndex()));
-        pos.setIndex(data.length());
-        return json;
+        Object[] array = EMPTY_ARRAY;
+        int size = 0;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY)
+        {
+            if (token == null)
+                throw new SocketIOProtocolException("Unexpected end of JSON array");
+
+            if (size == array.length)
+                array = Arrays.copyOf(array, Math.max(4, size * 2));
+
+            array[size] = (size == 0 ? firstArgReader : objectReader).readValue(parser);
+            size++;
+        }
+
+        return size == array.length ? array : Arrays.copyOf(array, size);
     }
 
-    static String encodeNamespace(String namespace, boolean addDelimiter)
+    //TODO: pass what type (Array, Map, Object) is expected?
+    static Object decodeArgs(CharSequence data, int pos)
+            throws SocketIOProtocolException
     {
-        if(namespace.equals(SocketIOProtocol.DEFAULT_NAMESPACE))
-            return "";
-        return namespace + (addDelimiter ? SocketIOProtocol.NAMESPACE_DELIMITER : "");
+        if (pos >= data.length())
+            return null;
+
+        return fromJSON(data.subSequence(pos, data.length()).toString());
     }
 
     static String encodeAttachments(int size)
@@ -314,73 +602,101 @@ public final class SocketIOProtocol
         return String.valueOf(size) + ATTACHMENTS_DELIMITER;
     }
 
-    private static boolean hasBinary(Object args)
-    {
-        if (args.getClass().isArray())
-        {
-            for (Object o : (Object[]) args)
-                if (hasBinary(o))
-                    return true;
-        }
-        else if (args instanceof Map)
-        {
-            for (Object o : ((Map) args).values())
-                if (hasBinary(o))
-                    return true;
-        }
-        else
-        {
-            return (args instanceof InputStream);
-        }
-
-        return false;
-    }
-
     /**
-     * Extracts binary objects (InputStream) from JSON and replaces it with
-     * placeholder objects {@code {"_placeholder":true,"num":1} }
-     * This method to be used before sending the packet
+     * Extracts binary objects ({@link InputStream}, {@code byte[]}, {@link ByteBuffer}) from JSON
+     * and replaces them with placeholder objects {@code {"_placeholder":true,"num":1} }
+     * This method to be used before sending the packet.
+     * <p/>
+     * JSON is walked once. Arrays, collections and maps containing binary objects are copied,
+     * the rest of the JSON is shared with the original object.
+     * Collections are copied as lists.
      *
      * @param json        JSON object
      * @param attachments container for extracted binary object
-     * @return modified JSON object
+     * @return modified JSON object, {@code json} itself if it has no binary objects
      */
     @SuppressWarnings("unchecked")
     static Object extractBinaryObjects(Object json, List<InputStream> attachments)
     {
-        //TODO: what about Collection? for now only array is supported
-        if (json.getClass().isArray())
+        if (json instanceof Object[])
         {
-            ArrayList<Object> array = new ArrayList<>(((Object[]) json).length);
-
-            for (Object o : (Object[]) json)
-                array.add(extractBinaryObjects(o, attachments));
-
-            return array.toArray();
+            Object[] array = (Object[]) json;
+            Object[] copy = null;
+            for (int i = 0; i < array.length; i++)
+            {
+                Object o = extractBinaryObjects(array[i], attachments);
+                if (o != array[i])
+                {
+                    if (copy == null)
+                        copy = Arrays.copyOf(array, array.length, Object[].class);
+                    copy[i] = o;
+                }
+            }
+            return copy == null ? array : copy;
+        }
+        else if (json instanceof Collection)
+        {
+            Collection<Object> collection = (Collection<Object>) json;
+            List<Object> copy = null;
+            int i = 0;
+            for (Object o : collection)
+            {
+                Object extracted = extractBinaryObjects(o, attachments);
+                if (copy == null && extracted != o)
+                {
+                    copy = new ArrayList<>(collection.size());
+                    Iterator<Object> it = collection.iterator();
+                    for (int j = 0; j < i; j++)
+                        copy.add(it.next());
+                }
+                if (copy != null)
+                    copy.add(extracted);
+                i++;
+            }
+            return copy == null ? collection : copy;
         }
         else if (json instanceof Map)
         {
-            Map<Object, Object> map = new LinkedHashMap<>();
-            Set<Map.Entry> entries = ((Map) json).entrySet();
-
-            for (Map.Entry e : entries)
-                map.put(e.getKey(), extractBinaryObjects(e.getValue(), attachments));
-
-            return map;
+            Map<Object, Object> map = (Map<Object, Object>) json;
+            Map<Object, Object> copy = null;
+            for (Map.Entry<Object, Object> e : map.entrySet())
+            {
+                Object o = extractBinaryObjects(e.getValue(), attachments);
+                if (o != e.getValue())
+                {
+                    if (copy == null)
+                        copy = new LinkedHashMap<>(map);
+                    copy.put(e.getKey(), o);
+                }
+            }
+            return copy == null ? map : copy;
         }
         else if (json instanceof InputStream)
         {
-            LinkedHashMap<String, Object> map = new LinkedHashMap<>();
-            map.put("_placeholder", true);
-            map.put("num", attachments.size());
-            attachments.add((InputStream) json);
-
-            return map;
+            return createPlaceholder((InputStream) json, attachments);
+        }
+        else if (json instanceof byte[])
+        {
+            return createPlaceholder(new ByteBufferInputStream((byte[]) json), attachments);
+        }
+        else if (json instanceof ByteBuffer)
+        {
+            return createPlaceholder(new ByteBufferInputStream((ByteBuffer) json), attachments);
         }
         else
             return json;
     }
 
+    private static Map<String, Object> createPlaceholder(InputStream attachment, List<InputStream> attachments)
+    {
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+        map.put("_placeholder", true);
+        map.put("num", attachments.size());
+        attachments.add(attachment);
+
+        return map;
+    }
+
     /**
      * Looks for the placeholder objects in {@code json.getArgs() } {@code {"_placeholder":true,"num":1}} and
      * replaces it with {@code attachment}
@@ -393,6 +709,19 @@ public final class SocketIOProtocol
     public static void insertBinaryObject(BinaryPacket packet, InputStream attachment)
             throws SocketIOProtocolException
     {
+        // packets created by the parser know where their placeholders are
+        AttachmentSlots slots = null;
+        if (packet instanceof BinaryEventPacket)
+            slots = ((BinaryEventPacket) packet).getAttachmentSlots();
+        else if (packet instanceof BinaryACKPacket)
+            slots = ((BinaryACKPacket) packet).getAttachmentSlots();
+
+        if (slots != null)
+        {
+            slots.insert(packet.getAttachments().size(), attachment);
+            return;
+        }
+
         boolean[] found = new boolean[1];
 
         Object copy = insertBinaryObject(packet.getArgs(), attachment, packet.getAttachments().size(), found);
@@ -448,21 +777,33 @@ public final class SocketIOProtocol
     private static boolean isPlaceholder(Map<Object, Object> map, int index)
             throws SocketIOProtocolException
     {
+        return getPlaceholderIndex(map) == index;
+    }
+
+    /**
+     * @param json JSON object
+     * @return attachment number if the object is a placeholder {@code {"_placeholder":true,"num":1}}, -1 otherwise
+     * @throws SocketIOProtocolException if placeholder has invalid attachment number
+     */
+    static int getPlaceholderIndex(Object json)
+            throws SocketIOProtocolException
+    {
+        if (!(json instanceof Map))
+            return -1;
+
+        Map<?, ?> map = (Map<?, ?>) json;
         if(Boolean.TRUE.equals(map.get("_placeholder")))
         {
             Object o = map.get("num");
 
-            if(o == null)
-                return false;
-
             if(o instanceof Number)
-                return index == ((Number)o).intValue();
+                return ((Number)o).intValue();
 
             if(o instanceof String)
             {
                 try
                 {
-                    return index == Integer.parseInt(o.toString());
+                    return Integer.parseInt(o.toString());
                 }
                 catch (NumberFormatException e)
                 {
@@ -470,6 +811,6 @@ public final class SocketIOProtocol
                 }
             }
         }
-        return false;
+        return -1;
     }
 }
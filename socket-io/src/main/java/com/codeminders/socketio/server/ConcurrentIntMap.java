@@ -0,0 +1,286 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent open addressing hash map with primitive int keys.
+ * Values carry their keys, so there are no boxed keys and no entry objects.
+ * <p/>
+ * Inserts and removals are lock-free. Removed entries leave tombstones. Keys are unique, so an insert
+ * takes the first tombstone or empty slot of its probe sequence, and put/remove churn reuses tombstones
+ * instead of filling the table. The rest of them are dropped when the table is rebuilt.
+ * Rebuild is done by one thread, threads which run into already moved slots wait for the new table.
+ * <p/>
+ * Keys must be unique, the map does not replace values.
+ */
+final class ConcurrentIntMap<V extends ConcurrentIntMap.Entry>
+{
+    interface Entry
+    {
+        int getKey();
+    }
+
+    private static final Object REMOVED = new Object(); // tombstone
+    private static final Object MOVED   = new Object(); // slot is copied into the new table
+
+    private static final int MIN_CAPACITY = 16;
+
+    private static final class Table
+    {
+        final AtomicReferenceArray<Object> slots;
+        final AtomicInteger used = new AtomicInteger(); // values and tombstones
+        final int threshold;
+
+        Table(int capacity)
+        {
+            slots = new AtomicReferenceArray<>(capacity);
+            threshold = capacity / 2;
+        }
+    }
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param value value to add. Its key must not be in the map
+     */
+    void put(V value)
+    {
+        int key = value.getKey();
+        while (true)
+        {
+            Table t = table;
+            if (t.used.get() >= t.threshold)
+            {
+                rebuild(t);
+                continue;
+            }
+
+            if (put(t, key, value))
+            {
+                size.incrementAndGet();
+                return;
+            }
+            waitForRebuild(t);
+        }
+    }
+
+    /**
+     * @return false if the table is being rebuilt
+     */
+    private static boolean put(Table t, int key, Object value)
+    {
+        int mask = t.slots.length() - 1;
+        for (int i = hash(key) & mask; ; )
+        {
+            Object current = t.slots.get(i);
+            if (current == MOVED)
+                return false;
+
+            if (current == null)
+            {
+                if (t.slots.compareAndSet(i, null, value))
+                {
+                    t.used.incrementAndGet();
+                    return true;
+                }
+                continue; // somebody took the slot, look at it again
+            }
+
+            // the key is not in the map, so it is not further along the probe sequence either
+            if (current == REMOVED)
+            {
+                if (t.slots.compareAndSet(i, REMOVED, value))
+                    return true; // tombstone is already counted as used
+                continue;
+            }
+
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * @param key key
+     * @return removed value, null if there is no such key
+     */
+    V remove(int key)
+    {
+        return remove(key, null);
+    }
+
+    /**
+     * @param value value to remove
+     * @return true if the value was in the map
+     */
+    boolean remove(V value)
+    {
+        return remove(value.getKey(), value) != null;
+    }
+
+    /**
+     * @param expected value to remove, null for any value with the key
+     */
+    @SuppressWarnings("unchecked")
+    private V remove(int key, V expected)
+    {
+        while (true)
+        {
+            Table t = table;
+            int mask = t.slots.length() - 1;
+            boolean moved = false;
+            for (int i = hash(key) & mask; ; )
+            {
+                Object current = t.slots.get(i);
+                if (current == null)
+                    return null;
+
+                if (current == MOVED)
+                {
+                    moved = true;
+                    break;
+                }
+
+                if (current != REMOVED && ((Entry) current).getKey() == key)
+                {
+                    if (expected != null && current != expected)
+                        return null;
+
+                    if (t.slots.compareAndSet(i, current, REMOVED))
+                    {
+                        size.decrementAndGet();
+                        return (V) current;
+                    }
+                    continue; // removed or moved concurrently
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            if (moved)
+                waitForRebuild(t);
+        }
+    }
+
+    /**
+     * Removes all values
+     *
+     * @return removed values
+     */
+    @SuppressWarnings("unchecked")
+    List<V> removeAll()
+    {
+        List<V> removed = new ArrayList<>();
+        while (true)
+        {
+            Table t = table;
+            boolean moved = false;
+            for (int i = 0; i < t.slots.length(); i++)
+            {
+                Object current = t.slots.get(i);
+                if (current == MOVED)
+                {
+                    moved = true;
+                    break;
+                }
+
+                if (current != null && current != REMOVED && t.slots.compareAndSet(i, current, REMOVED))
+                {
+                    size.decrementAndGet();
+                    removed.add((V) current);
+                }
+            }
+
+            if (!moved)
+                return removed;
+            waitForRebuild(t);
+        }
+    }
+
+    /**
+     * @return number of values. Could be outdated by the time it is returned
+     */
+    int size()
+    {
+        return size.get();
+    }
+
+    /**
+     * @return number of slots holding values or tombstones. For tests
+     */
+    int usedSlots()
+    {
+        return table.used.get();
+    }
+
+    /**
+     * @return number of slots in the table. For tests
+     */
+    int capacity()
+    {
+        return table.slots.length();
+    }
+
+    private synchronized void rebuild(Table t)
+    {
+        if (table != t)
+            return; // rebuilt by another thread
+
+        // sized by the live values, tombstones are dropped
+        int capacity = MIN_CAPACITY;
+        while (capacity < size.get() * 4)
+            capacity <<= 1;
+
+        Table rebuilt = new Table(capacity);
+        for (int i = 0; i < t.slots.length(); i++)
+        {
+            Object current;
+            do
+            {
+                current = t.slots.get(i);
+            }
+            while (!t.slots.compareAndSet(i, current, MOVED));
+
+            if (current != null && current != REMOVED)
+                put(rebuilt, ((Entry) current).getKey(), current);
+        }
+
+        table = rebuilt;
+    }
+
+    private void waitForRebuild(Table t)
+    {
+        while (table == t)
+            Thread.yield();
+    }
+
+    private static int hash(int key)
+    {
+        // keys are mostly sequential, spreading them keeps probe sequences apart
+        return key * 0x9E3779B9;
+    }
+}
@@ -32,6 +32,9 @@ public interface Config
     String MAX_TEXT_MESSAGE_SIZE = "maxTextMessageSize";
     String PING_INTERVAL         = "pingInterval";
     String TIMEOUT               = "timeout";
+    String MAX_HTTP_BUFFER_SIZE  = "maxHttpBufferSize";
+    String MAX_PENDING_ACKS      = "maxPendingAcks";
+    String ACK_OVERFLOW_POLICY   = "ackOverflowPolicy";
 
     String BUFFER_SIZE = "bufferSize";
     String MAX_IDLE    = "maxIdleTime";
@@ -42,6 +45,9 @@ public interface Config
     int DEFAULT_PING_INTERVAL = 25 * 1000; // 25s
     int DEFAULT_PING_TIMEOUT  = 60 * 1000; // 60s
 
+    int DEFAULT_MAX_HTTP_BUFFER_SIZE = 1000 * 1000; // 1MB
+    int DEFAULT_MAX_PENDING_ACKS     = 1000;        // per session
+
     long getPingInterval(long def);
 
     long getTimeout(long def);
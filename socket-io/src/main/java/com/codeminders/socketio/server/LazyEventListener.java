@@ -0,0 +1,45 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.server;
+
+import com.codeminders.socketio.protocol.LazyArgs;
+
+/**
+ * Event listener receiving event arguments as raw JSON parsed on access.
+ * Useful for listeners which look only at some of the arguments or forward them untouched.
+ *
+ * @see Socket#on(String, LazyEventListener)
+ */
+public interface LazyEventListener
+{
+    /**
+     * Called upon incoming event
+     *
+     * @param name event name
+     * @param args event arguments. Pass {@code args} as the only argument of an emit
+     *             to send the arguments on without encoding them again
+     * @param ackRequested true if client requested an acknowledgement
+     * @return Object to send back to the caller as an acknowledgement, null if no ack to be sent
+     */
+    Object onEvent(String name, LazyArgs args, boolean ackRequested);
+}
@@ -0,0 +1,133 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs tasks of one session one at a time, in the order they were added.
+ * <p/>
+ * Tasks are queued without locks. The thread which finds the mailbox idle runs the queue, either itself
+ * ({@link #run(Runnable)}) or on the shared worker pool ({@link #execute(Runnable)}). A thread runs at most
+ * {@link #BATCH} tasks, the rest are handed over to the pool, so a busy session does not hold a container thread.
+ * <p/>
+ * A task added by a running task runs after it, never inside it.
+ */
+final class Mailbox implements Executor
+{
+    private static final Logger LOGGER = Logger.getLogger(Mailbox.class.getName());
+
+    private static final int BATCH = 64;
+
+    private final Executor        workers;
+    private final Queue<Runnable> tasks   = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean   running = new AtomicBoolean();
+
+    private final Runnable drain = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            drain();
+        }
+    };
+
+    /**
+     * @param workers pool to run the tasks on. Shared by all mailboxes
+     */
+    Mailbox(Executor workers)
+    {
+        this.workers = workers;
+    }
+
+    /**
+     * Adds the task. It runs on the worker pool
+     *
+     * @param task task
+     */
+    @Override
+    public void execute(Runnable task)
+    {
+        tasks.add(task);
+        if (running.compareAndSet(false, true))
+            schedule();
+    }
+
+    /**
+     * Adds the task. If no other task is running, it runs on the calling thread before this method returns
+     *
+     * @param task task
+     */
+    void run(Runnable task)
+    {
+        tasks.add(task);
+        if (running.compareAndSet(false, true))
+            drain();
+    }
+
+    private void drain()
+    {
+        for (int i = 0; i < BATCH; i++)
+        {
+            Runnable task = tasks.poll();
+            if (task == null)
+                break;
+
+            try
+            {
+                task.run();
+            }
+            catch (Throwable e)
+            {
+                if (LOGGER.isLoggable(Level.WARNING))
+                    LOGGER.log(Level.WARNING, "Session task failed", e);
+            }
+        }
+
+        running.set(false);
+
+        // a task could be added after the last poll, but before the mailbox became idle
+        if (!tasks.isEmpty() && running.compareAndSet(false, true))
+            schedule();
+    }
+
+    private void schedule()
+    {
+        try
+        {
+            workers.execute(drain);
+        }
+        catch (RejectedExecutionException e)
+        {
+            running.set(false);
+            if (LOGGER.isLoggable(Level.FINE))
+                LOGGER.log(Level.FINE, "Session tasks are dropped, worker pool is shut down", e);
+        }
+    }
+}
@@ -24,19 +24,25 @@ package com.codeminders.socketio.server;
 
 import com.codeminders.socketio.common.DisconnectReason;
 import com.codeminders.socketio.common.SocketIOException;
+import com.codeminders.socketio.protocol.EventNames;
 
 import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * @author Alexander Sova (bird@codeminders.com)
  */
 public class Namespace implements Outbound, ConnectionListener, DisconnectListener
 {
+    private static final Logger LOGGER = Logger.getLogger(Namespace.class.getName());
+
     private String                   id;
 
     private List<Socket>             sockets             = Collections.synchronizedList(new LinkedList<Socket>());
     private List<ConnectionListener> connectionListeners = Collections.synchronizedList(new LinkedList<ConnectionListener>());
     private Map<String, Room>        rooms               = Collections.synchronizedMap(new LinkedHashMap<String, Room>());
+    private final EventNames         eventNames          = new EventNames();
 
     Namespace(String id)
     {
@@ -51,11 +57,52 @@ public class Namespace implements Outbound, ConnectionListener, DisconnectListen
     @Override
     public void emit(String name, Object... args)
     {
+        PreparedEvent event;
+        try
+        {
+            event = prepareBroadcast(name, args);
+        }
+        catch (SocketIOProtocolException e)
+        {
+            if (LOGGER.isLoggable(Level.WARNING))
+                LOGGER.log(Level.WARNING, "Cannot encode event " + name + " for namespace " + id, e);
+            return;
+        }
+
+        for(Socket s : sockets)
+        {
+            try
+            {
+                if (event == null)
+                    s.emit(name, args);
+                else
+                    s.emit(event);
+            }
+            catch (SocketIOException e)
+            {
+                // ignore for now
+                // TODO: add getLastError method?
+            }
+        }
+    }
+
+
+    /**
+     * Emits an event prepared with {@link Namespace#prepare(String, Object...)} without encoding it again.
+     *
+     * @param event prepared event. Must be prepared for this namespace
+     */
+    public void emit(PreparedEvent event)
+    {
+        if (!event.getNamespace().equals(id))
+            throw new IllegalArgumentException("Event is prepared for namespace " + event.getNamespace() +
+                    ", cannot emit it to " + id);
+
         for(Socket s : sockets)
         {
             try
             {
-                s.emit(name, args);
+                s.emit(event);
             }
             catch (SocketIOException e)
             {
@@ -65,6 +112,39 @@ public class Namespace implements Outbound, ConnectionListener, DisconnectListen
         }
     }
 
+    /**
+     * Encodes an event once to emit it many times to sockets and rooms of this namespace
+     * with {@link Socket#emit(PreparedEvent)}, {@link Room#emit(PreparedEvent)} or {@link #emit(PreparedEvent)}.
+     * Binary arguments are read into memory.
+     *
+     * @param name event name
+     * @param args event arguments. {@link ACKListener} is not allowed
+     * @return prepared event
+     * @throws SocketIOProtocolException if the event cannot be encoded
+     */
+    public PreparedEvent prepare(String name, Object... args)
+            throws SocketIOProtocolException
+    {
+        return new PreparedEvent(SocketIOManager.getInstance().getPayloadCodec(), id, name, args);
+    }
+
+    /**
+     * Prepares an event to be sent to many sockets of this namespace.
+     * The event is encoded only once no matter how many sockets it is sent to.
+     *
+     * @param name event name
+     * @param args event arguments
+     * @return prepared event, or null if ACK is requested since every socket needs its own packet id then
+     * @throws SocketIOProtocolException if the event cannot be encoded
+     */
+    PreparedEvent prepareBroadcast(String name, Object[] args)
+            throws SocketIOProtocolException
+    {
+        if (args.length > 0 && args[args.length - 1] instanceof ACKListener)
+            return null;
+
+        return prepare(name, args);
+    }
 
     public void on(ConnectionListener listener)
     {
@@ -79,6 +159,14 @@ public class Namespace implements Outbound, ConnectionListener, DisconnectListen
             listener.onConnect(socket);
     }
 
+    /**
+     * @return names of the events listened to by sockets of this namespace
+     */
+    EventNames getEventNames()
+    {
+        return eventNames;
+    }
+
     public Socket createSocket(Session session)
     {
         Socket socket = new Socket(session, this);
@@ -106,7 +194,7 @@ public class Namespace implements Outbound, ConnectionListener, DisconnectListen
         Room room = rooms.get(roomId);
         if(room == null)
         {
-            room = new Room(roomId);
+            room = new Room(this, roomId);
             rooms.put(roomId, room);
         }
         return room;
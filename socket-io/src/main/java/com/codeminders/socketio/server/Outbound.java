@@ -32,7 +32,10 @@ public interface Outbound
      * @param name event name
      * @param args list of arguments. Arguments can contain any type of field that can result of JSON decoding,
      *             including objects and arrays of arbitrary size. If last argument is {@code ACKListener}
-     *             then this listener to be called upon ACK arriving
+     *             then this listener to be called upon ACK arriving.
+     *             {@link ACKTimeoutListener} is also told if the ACK does not come in time.
+     *             {@link com.codeminders.socketio.protocol.RawJson} arguments are sent as they are,
+     *             {@link com.codeminders.socketio.protocol.LazyArgs} as the only argument is sent as the list of arguments
      * @throws SocketIOException if IO or protocol error happens
      */
 
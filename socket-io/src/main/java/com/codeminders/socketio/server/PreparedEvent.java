@@ -0,0 +1,203 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.server;
+
+import com.codeminders.socketio.protocol.ByteBufferInputStream;
+import com.codeminders.socketio.protocol.EngineIOPacket;
+import com.codeminders.socketio.protocol.EngineIOProtocol;
+import com.codeminders.socketio.protocol.PayloadCodec;
+import com.codeminders.socketio.protocol.SocketIOPacket;
+import com.codeminders.socketio.protocol.SocketIOProtocol;
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Event encoded into final Engine.IO packets once, to be emitted any number of times
+ * to any socket, room or the whole namespace it was prepared for without encoding it again.
+ * Acknowledgements cannot be requested for prepared events.
+ * <p/>
+ * Binary arguments are read into memory when the event is prepared.
+ * <p/>
+ * Prepared events are immutable and could be shared between threads.
+ *
+ * @see Namespace#prepare(String, Object...)
+ */
+public final class PreparedEvent
+{
+    private final String               namespace;
+    private final String               name;
+    private final PayloadCodec         codec;
+    private final Object[]             args; // binary objects are in memory
+    private final List<EngineIOPacket> packets;
+    private final List<String>         textFrames;
+
+    PreparedEvent(PayloadCodec codec, String namespace, String name, Object[] args)
+            throws SocketIOProtocolException
+    {
+        if (args.length > 0 && args[args.length - 1] instanceof ACKListener)
+            throw new IllegalArgumentException("Acknowledgement cannot be requested for prepared event " + name);
+
+        this.namespace = namespace;
+        this.name = name;
+        this.codec = codec;
+        this.args = (Object[]) readBinaryObjects(args);
+
+        List<EngineIOPacket> packets = codec.encode(getPacket());
+        List<String> textFrames = new ArrayList<>(packets.size());
+        for (EngineIOPacket p : packets)
+        {
+            if (p.getText() != null)
+            {
+                // both forms are created now, so the packets are not modified once shared
+                p.getTextBytes();
+                textFrames.add(EngineIOProtocol.encode(p));
+            }
+            else
+                textFrames.add(null);
+        }
+        this.packets = Collections.unmodifiableList(packets);
+        this.textFrames = Collections.unmodifiableList(textFrames);
+    }
+
+    public String getNamespace()
+    {
+        return namespace;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return codec the event was encoded with
+     */
+    public PayloadCodec getCodec()
+    {
+        return codec;
+    }
+
+    /**
+     * Creates Socket.IO packet of the event, to be encoded by another codec.
+     * Every call returns new packet, with its own streams over the binary arguments.
+     *
+     * @return new packet of the event
+     */
+    public SocketIOPacket getPacket()
+    {
+        return SocketIOProtocol.createEventPacket(-1, namespace, name, args);
+    }
+
+    /**
+     * @return Engine.IO packets to send, in order
+     */
+    public List<EngineIOPacket> getPackets()
+    {
+        return packets;
+    }
+
+    /**
+     * @param index index of the packet in {@link #getPackets()}
+     * @return packet encoded as Engine.IO text frame, null for binary packets
+     */
+    public String getTextFrame(int index)
+    {
+        return textFrames.get(index);
+    }
+
+    /**
+     * Replaces streams in JSON by the bytes read from them, so the event could be sent any number of times.
+     * Containers are copied only if they have streams inside.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object readBinaryObjects(Object json)
+            throws SocketIOProtocolException
+    {
+        if (json instanceof Object[])
+        {
+            Object[] array = (Object[]) json;
+            Object[] copy = null;
+            for (int i = 0; i < array.length; i++)
+            {
+                Object o = readBinaryObjects(array[i]);
+                if (o != array[i])
+                {
+                    if (copy == null)
+                        copy = Arrays.copyOf(array, array.length, Object[].class);
+                    copy[i] = o;
+                }
+            }
+            return copy == null ? array : copy;
+        }
+        else if (json instanceof Collection)
+        {
+            Collection<Object> collection = (Collection<Object>) json;
+            List<Object> copy = new ArrayList<>(collection.size());
+            boolean changed = false;
+            for (Object o : collection)
+            {
+                Object read = readBinaryObjects(o);
+                changed |= read != o;
+                copy.add(read);
+            }
+            return changed ? copy : collection;
+        }
+        else if (json instanceof Map)
+        {
+            Map<Object, Object> map = (Map<Object, Object>) json;
+            Map<Object, Object> copy = null;
+            for (Map.Entry<Object, Object> e : map.entrySet())
+            {
+                Object o = readBinaryObjects(e.getValue());
+                if (o != e.getValue())
+                {
+                    if (copy == null)
+                        copy = new LinkedHashMap<>(map);
+                    copy.put(e.getKey(), o);
+                }
+            }
+            return copy == null ? map : copy;
+        }
+        else if (json instanceof ByteBufferInputStream)
+        {
+            return ((ByteBufferInputStream) json).getBuffer();
+        }
+        else if (json instanceof InputStream)
+        {
+            try
+            {
+                return ByteBuffer.wrap(ByteStreams.toByteArray((InputStream) json));
+            }
+            catch (IOException e)
+            {
+                throw new SocketIOProtocolException("Cannot read binary argument", e);
+            }
+        }
+        else
+            return json;
+    }
+}
@@ -32,11 +32,13 @@ import java.util.concurrent.ConcurrentLinkedDeque;
  */
 public class Room implements Outbound
 {
+    private Namespace namespace;
     private String id;
     private Deque<Socket> sockets = new ConcurrentLinkedDeque<>();
 
-    Room(String id)
+    Room(Namespace namespace, String id)
     {
+        this.namespace = namespace;
         this.id = id;
     }
 
@@ -48,11 +50,42 @@ public class Room implements Outbound
     @Override
     public void emit(String name, Object... args) throws SocketIOException
     {
+        PreparedEvent event = namespace.prepareBroadcast(name, args);
+
+        for(Socket s : sockets)
+        {
+            try
+            {
+                if (event == null)
+                    s.emit(name, args);
+                else
+                    s.emit(event);
+            }
+            catch (SocketIOException e)
+            {
+                // ignore for now
+                // TODO: add getLastError method?
+            }
+        }
+    }
+
+    /**
+     * Emits an event prepared with {@link Namespace#prepare(String, Object...)} without encoding it again.
+     *
+     * @param event prepared event. Must be prepared for the namespace of this room
+     * @throws SocketIOException if IO error happens
+     */
+    public void emit(PreparedEvent event) throws SocketIOException
+    {
+        if (!event.getNamespace().equals(namespace.getId()))
+            throw new IllegalArgumentException("Event is prepared for namespace " + event.getNamespace() +
+                    ", cannot emit it to " + namespace.getId());
+
         for(Socket s : sockets)
         {
             try
             {
-                s.emit(name, args);
+                s.emit(event);
             }
             catch (SocketIOException e)
             {
@@ -80,10 +113,17 @@ public class Room implements Outbound
     public void broadcast(Socket sender, String name, Object... args)
             throws SocketIOException
     {
+        PreparedEvent event = namespace.prepareBroadcast(name, args);
+
         for (Socket socket: sockets)
         {
-            if (socket != sender)
+            if (socket == sender)
+                continue;
+
+            if (event == null)
                 socket.emit(name, args);
+            else
+                socket.emit(event);
         }
     }
 
@@ -34,15 +34,15 @@ import javax.servlet.http.HttpSession;
 import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-//TODO: this class is not thread-safe at all
-
 /**
  * SocketIO session.
  * <p>
- * This implementation is not thread-safe.
+ * Incoming packets, connection state changes, timeouts and listener callbacks of the session run one at a time
+ * in its {@link Mailbox}, so they see a consistent state without locking. Events can be emitted from any thread.
  *
  * @author Alexander Sova (bird@codeminders.com)
  */
@@ -53,31 +53,76 @@ public class Session implements DisconnectListener
     private final SocketIOManager socketIOManager;
     private final String          sessionId;
     private final HttpSession     httpSession;
+    private final int             protocolVersion;
     private final Map<String, Object> attributes = new ConcurrentHashMap<>();
 
-    private Map<String, Socket> sockets = new LinkedHashMap<>(); // namespace, socket
+    private final Mailbox mailbox;
+
+    private final Map<String, Socket> sockets = new ConcurrentHashMap<>(); // namespace, socket
 
-    private TransportConnection activeConnection;
-    private ConnectionState  state            = ConnectionState.CONNECTING;
+    // written in the mailbox, read by emitting threads too
+    private volatile TransportConnection activeConnection;
+    private volatile ConnectionState     state = ConnectionState.CONNECTING;
 
     private DisconnectReason disconnectReason = DisconnectReason.UNKNOWN;
     private String disconnectMessage;
 
     private long      timeout;
-    private Future<?> timeoutTask;
+    private final TimeoutWheel.Timeout timeoutTask;
     private boolean   timedOut;
 
+    private long      pingInterval;
+    private Future<?> pingTask;
+
     private BinaryPacket              binaryPacket;
-    private int                       packet_id     = 0; // packet id. used for requesting ACK
-    private Map<Integer, ACKListener> ack_listeners = new LinkedHashMap<>(); // packetid, listener
+    private final AtomicInteger       packet_id     = new AtomicInteger(); // next packet id. used for requesting ACK
+    private final AtomicInteger       oldest_ack_id = new AtomicInteger(); // no pending ACKs below it
+    private final ConcurrentIntMap<PendingACK> ack_listeners = new ConcurrentIntMap<>(); // by packet id
+    // set by the transport, read by emitting threads
+    private volatile int               maxPendingACKs    = Config.DEFAULT_MAX_PENDING_ACKS;
+    private volatile ACKOverflowPolicy ackOverflowPolicy = ACKOverflowPolicy.DROP_OLDEST;
+
+    private final ArgumentTypeResolver argumentTypes = new ArgumentTypeResolver()
+    {
+        @Override
+        public Class<?> getArgumentType(String namespace, String eventName)
+        {
+            Socket socket = sockets.get(namespace);
+            return socket == null ? null : socket.getArgumentType(eventName);
+        }
 
-    Session(SocketIOManager socketIOManager, String sessionId, HttpSession httpSession)
+        @Override
+        public EventNames getEventNames(String namespace)
+        {
+            Socket socket = sockets.get(namespace);
+            return socket == null ? null : socket.getEventNames();
+        }
+    };
+
+    Session(SocketIOManager socketIOManager, String sessionId, HttpSession httpSession, int protocolVersion)
     {
         assert (socketIOManager != null);
 
         this.socketIOManager = socketIOManager;
         this.sessionId = sessionId;
         this.httpSession = httpSession;
+        this.protocolVersion = protocolVersion;
+        this.mailbox = new Mailbox(socketIOManager.workers);
+        this.timeoutTask = socketIOManager.timeouts.newTimeout(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                mailbox.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        Session.this.onTimeout();
+                    }
+                });
+            }
+        });
     }
 
     public Socket createSocket(String ns)
@@ -107,6 +152,23 @@ public class Session implements DisconnectListener
         return sessionId;
     }
 
+    /**
+     * @return Engine.IO protocol version of the client, {@link EngineIOProtocol#PROTOCOL_V3} or
+     *         {@link EngineIOProtocol#PROTOCOL_V4}. Socket.IO protocol version is one more.
+     */
+    public int getProtocolVersion()
+    {
+        return protocolVersion;
+    }
+
+    /**
+     * @return codec used to encode and decode Socket.IO packets of this session
+     */
+    public PayloadCodec getPayloadCodec()
+    {
+        return socketIOManager.getPayloadCodec().forProtocol(protocolVersion);
+    }
+
     public ConnectionState getConnectionState()
     {
         return state;
@@ -117,29 +179,26 @@ public class Session implements DisconnectListener
         return activeConnection;
     }
 
+    /**
+     * Restarts session timeout. Cheap enough to be called on every incoming packet
+     */
     public void resetTimeout()
     {
-        clearTimeout();
         if (timedOut || timeout == 0)
+        {
+            clearTimeout();
             return;
+        }
 
-        timeoutTask = socketIOManager.executor.schedule(new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                Session.this.onTimeout();
-            }
-        }, timeout, TimeUnit.MILLISECONDS);
+        // since protocol 4 the client answers pings of the server, so it is silent up to the ping interval
+        long delay = protocolVersion >= EngineIOProtocol.PROTOCOL_V4 ? pingInterval + timeout : timeout;
+
+        timeoutTask.reset(delay);
     }
 
     public void clearTimeout()
     {
-        if (timeoutTask != null)
-        {
-            timeoutTask.cancel(false);
-            timeoutTask = null;
-        }
+        timeoutTask.cancel();
     }
 
     public void setTimeout(long timeout)
@@ -152,6 +211,70 @@ public class Session implements DisconnectListener
         return timeout;
     }
 
+    /**
+     * @param pingInterval interval of the server pings, ms. Server sends pings since protocol 4
+     */
+    public void setPingInterval(long pingInterval)
+    {
+        this.pingInterval = pingInterval;
+    }
+
+    public long getPingInterval()
+    {
+        return pingInterval;
+    }
+
+    private void startPing()
+    {
+        if (pingInterval <= 0)
+            return;
+
+        final Runnable ping = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Session.this.onPingInterval();
+            }
+        };
+
+        pingTask = socketIOManager.executor.scheduleAtFixedRate(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                mailbox.execute(ping);
+            }
+        }, pingInterval, pingInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void stopPing()
+    {
+        if (pingTask != null)
+        {
+            pingTask.cancel(false);
+            pingTask = null;
+        }
+    }
+
+    private void onPingInterval()
+    {
+        TransportConnection connection = activeConnection;
+        if (state != ConnectionState.CONNECTED || connection == null)
+            return;
+
+        try
+        {
+            connection.send(EngineIOProtocol.createPingPacket(""));
+        }
+        catch (SocketIOException e)
+        {
+            // session is closed on timeout if the client is gone
+            if (LOGGER.isLoggable(Level.FINE))
+                LOGGER.log(Level.FINE, "Session[" + sessionId + "]: cannot send ping", e);
+        }
+    }
+
     private void onBinary(InputStream is)
             throws SocketIOProtocolException
     {
@@ -171,26 +294,63 @@ public class Session implements DisconnectListener
         }
     }
 
-    public void onConnect(TransportConnection connection) throws SocketIOException
+    /**
+     * Connects the session. If the connect packet cannot be sent, the connection is closed
+     *
+     * @param connection first connection of the session
+     */
+    public void onConnect(final TransportConnection connection)
     {
         assert (connection != null);
+
+        mailbox.run(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                connect(connection);
+            }
+        });
+    }
+
+    private void connect(TransportConnection connection)
+    {
         assert (this.activeConnection == null);
 
         this.activeConnection = connection;
 
-        Socket socket = createSocket(SocketIOProtocol.DEFAULT_NAMESPACE);
-        try
+        if (protocolVersion >= EngineIOProtocol.PROTOCOL_V4)
         {
-            connection.send(SocketIOProtocol.createConnectPacket(SocketIOProtocol.DEFAULT_NAMESPACE));
+            // Socket.IO 5 clients connect to the default namespace explicitly
             state = ConnectionState.CONNECTED;
-            socketIOManager.getNamespace(SocketIOProtocol.DEFAULT_NAMESPACE).onConnect(socket); // callback
+            resetTimeout();
+            startPing();
+            return;
         }
-        catch (ConnectionException e)
+
+        try
+        {
+            Socket socket = createSocket(SocketIOProtocol.DEFAULT_NAMESPACE);
+            try
+            {
+                connection.send(SocketIOProtocol.createConnectPacket(SocketIOProtocol.DEFAULT_NAMESPACE));
+                state = ConnectionState.CONNECTED;
+                socketIOManager.getNamespace(SocketIOProtocol.DEFAULT_NAMESPACE).onConnect(socket); // callback
+            }
+            catch (ConnectionException e)
+            {
+                if (LOGGER.isLoggable(Level.FINE))
+                    LOGGER.log(Level.FINE, "Connection failed", e);
+
+                connection.send(SocketIOProtocol.createErrorPacket(SocketIOProtocol.DEFAULT_NAMESPACE, e.getArgs()));
+                closeConnection(DisconnectReason.CONNECT_FAILED, connection);
+            }
+        }
+        catch (SocketIOException e)
         {
             if (LOGGER.isLoggable(Level.FINE))
-                LOGGER.log(Level.FINE, "Connection failed", e);
+                LOGGER.log(Level.FINE, "Session[" + sessionId + "]: cannot connect", e);
 
-            connection.send(SocketIOProtocol.createErrorPacket(SocketIOProtocol.DEFAULT_NAMESPACE, e.getArgs()));
             closeConnection(DisconnectReason.CONNECT_FAILED, connection);
         }
     }
@@ -200,9 +360,16 @@ public class Session implements DisconnectListener
      *
      * @param message detailed explanation of the disconnect reason
      */
-    public void setDisconnectMessage(String message)
+    public void setDisconnectMessage(final String message)
     {
-        this.disconnectMessage = message;
+        mailbox.run(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                disconnectMessage = message;
+            }
+        });
     }
 
     /**
@@ -210,7 +377,19 @@ public class Session implements DisconnectListener
      *
      * @param reason session disconnect reason
      */
-    public void setDisconnectReason(DisconnectReason reason)
+    public void setDisconnectReason(final DisconnectReason reason)
+    {
+        mailbox.run(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                closing(reason);
+            }
+        });
+    }
+
+    private void closing(DisconnectReason reason)
     {
         this.state = ConnectionState.CLOSING;
         this.disconnectReason = reason;
@@ -221,10 +400,17 @@ public class Session implements DisconnectListener
      */
     public void onShutdown()
     {
-        if (state == ConnectionState.CLOSING)
-            onDisconnect(disconnectReason);
-        else
-            onDisconnect(DisconnectReason.ERROR);
+        mailbox.run(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if (state == ConnectionState.CLOSING)
+                    onDisconnect(disconnectReason);
+                else
+                    onDisconnect(DisconnectReason.ERROR);
+            }
+        });
     }
 
     /**
@@ -242,6 +428,8 @@ public class Session implements DisconnectListener
         state = ConnectionState.CLOSED;
 
         clearTimeout();
+        stopPing();
+        failPendingACKs();
 
         // taking copy of sockets because
         // session will be modifying the collection while iterating
@@ -266,23 +454,56 @@ public class Session implements DisconnectListener
         }
     }
 
-    public void onPacket(EngineIOPacket packet, TransportConnection connection)
+    /**
+     * Handles incoming packet. Runs on the calling thread, unless another thread is busy with the session,
+     * then the packet is queued and handled by that thread
+     *
+     * @param packet     packet
+     * @param connection connection the packet came from
+     */
+    public void onPacket(final EngineIOPacket packet, final TransportConnection connection)
+    {
+        mailbox.run(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                handle(packet, connection);
+            }
+        });
+    }
+
+    private void handle(EngineIOPacket packet, TransportConnection connection)
     {
         switch (packet.getType())
         {
             case OPEN:
+                // ignore. OPEN is server -> client only
+                return;
+
             case PONG:
-                // ignore. OPEN and PONG are server -> client only
+                // answer to the server ping, since protocol 4
+                resetTimeout();
                 return;
 
             case MESSAGE:
                 resetTimeout();
                 try
                 {
-                    if (packet.getTextData() != null)
-                        onPacket(SocketIOProtocol.decode(packet.getTextData()));
+                    PayloadCodec codec = getPayloadCodec();
+                    if (packet.getText() != null)
+                        onPacket(codec.decode(packet.getText(), argumentTypes));
                     else if (packet.getBinaryData() != null)
-                        onBinary(packet.getBinaryData());
+                    {
+                        SocketIOPacket decoded = null;
+                        if (binaryPacket == null)
+                            decoded = codec.decode(packet.getBinaryData(), argumentTypes);
+
+                        if (decoded != null)
+                            onPacket(decoded);
+                        else
+                            onBinary(packet.getBinaryData());
+                    }
                 }
                 catch (SocketIOProtocolException e)
                 {
@@ -324,18 +545,25 @@ public class Session implements DisconnectListener
                 {
                     if (socketIOManager.getNamespace(packet.getNamespace()) == null)
                     {
-                        getConnection().send(SocketIOProtocol.createErrorPacket(packet.getNamespace(), "Invalid namespace"));
+                        getConnection().send(createConnectErrorPacket(packet.getNamespace(), "Invalid namespace"));
                         return;
                     }
                     Socket socket = createSocket(packet.getNamespace());
-                    getConnection().send(SocketIOProtocol.createConnectPacket(packet.getNamespace()));
+                    if (protocolVersion >= EngineIOProtocol.PROTOCOL_V4)
+                    {
+                        socket.setAuth(((ConnectPacket) packet).getArgs());
+                        getConnection().send(SocketIOProtocol.createConnectPacket(packet.getNamespace(),
+                                Collections.singletonMap("sid", socket.getId())));
+                    }
+                    else
+                        getConnection().send(SocketIOProtocol.createConnectPacket(packet.getNamespace()));
                     try
                     {
                         socketIOManager.getNamespace(socket.getNamespace()).onConnect(socket);
                     }
                     catch (ConnectionException e)
                     {
-                        getConnection().send(SocketIOProtocol.createErrorPacket(socket.getNamespace(), e.getArgs()));
+                        getConnection().send(createConnectErrorPacket(socket.getNamespace(), e.getArgs()));
                         socket.disconnect(false);
                     }
                 }
@@ -370,6 +598,14 @@ public class Session implements DisconnectListener
         }
     }
 
+    private SocketIOPacket createConnectErrorPacket(String ns, Object args)
+    {
+        if (protocolVersion >= EngineIOProtocol.PROTOCOL_V4)
+            return SocketIOProtocol.createConnectErrorPacket(ns, args);
+
+        return SocketIOProtocol.createErrorPacket(ns, args);
+    }
+
     private void onPing(String data, TransportConnection connection)
     {
         try
@@ -407,7 +643,7 @@ public class Session implements DisconnectListener
                 return;
             }
 
-            Object ack = socket.onEvent(packet.getName(), packet.getArgs(), packet.getId() != -1);
+            Object ack = socket.onEvent(packet.getNameIndex(), packet.getName(), packet.getArgs(), packet.getId() != -1);
 
             if (packet.getId() != -1 && ack != null)
             {
@@ -434,10 +670,9 @@ public class Session implements DisconnectListener
 
         try
         {
-            ACKListener listener = ack_listeners.get(packet.getId());
-            unsubscribeACK(packet.getId());
-            if (listener != null)
-                listener.onACK(packet.getArgs());
+            PendingACK pending = removeACK(packet.getId());
+            if (pending != null)
+                pending.listener.onACK(packet.getArgs());
         }
         catch (Throwable e)
         {
@@ -460,24 +695,209 @@ public class Session implements DisconnectListener
     private void closeConnection(DisconnectReason reason, TransportConnection connection)
     {
         if (this.activeConnection == connection)
-            setDisconnectReason(reason);
+            closing(reason);
         connection.abort(); //this call should trigger onShutdown() eventually
     }
 
-    public synchronized int getNewPacketId()
+    /**
+     * @return new packet id. Ids are never negative, they start from 0 after {@link Integer#MAX_VALUE}
+     */
+    public int getNewPacketId()
     {
-        return packet_id++;
+        return packet_id.getAndIncrement() & Integer.MAX_VALUE;
     }
 
-    //TODO: what if ACK never comes? We will have a memory leak. Need to cleanup the list or fail on timeout?
+    /**
+     * Registers listener for the ACK of an outgoing event.
+     * The listener is dropped when the ACK comes, when it times out (see {@link ACKTimeoutListener}),
+     * when the session is closed, or when too many ACKs are pending (see {@link #setMaxPendingACKs(int)}).
+     *
+     * @param packet_id    id of the event packet, see {@link #getNewPacketId()}. Only one listener per id
+     * @param ack_listener listener
+     * @throws SocketIOException if too many ACKs are pending and the policy is {@link ACKOverflowPolicy#REJECT_NEW}
+     */
     public void subscribeACK(int packet_id, ACKListener ack_listener)
+            throws SocketIOException
     {
-        ack_listeners.put(packet_id, ack_listener);
+        PendingACK pending = new PendingACK(packet_id, ack_listener);
+        PendingACK dropped = null;
+
+        // the limit is not exact when ACKs are subscribed from several threads at once
+        if (maxPendingACKs > 0 && ack_listeners.size() >= maxPendingACKs)
+        {
+            if (ackOverflowPolicy == ACKOverflowPolicy.REJECT_NEW)
+                throw new SocketIOException("Too many pending ACKs: " + ack_listeners.size());
+
+            dropped = removeOldestACK();
+        }
+
+        ack_listeners.put(pending);
+        pending.startTimeout();
+
+        if (dropped != null)
+        {
+            if (LOGGER.isLoggable(Level.FINE))
+                LOGGER.log(Level.FINE, "Session[" + sessionId + "]: too many pending ACKs, dropping ACK " + dropped.id);
+
+            // the listener is called in the mailbox, not by the emitting thread
+            final PendingACK failed = dropped;
+            mailbox.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    failed.fail();
+                }
+            });
+        }
     }
 
     public void unsubscribeACK(int packet_id)
     {
-        ack_listeners.remove(packet_id);
+        removeACK(packet_id);
+    }
+
+    private PendingACK removeACK(int packet_id)
+    {
+        PendingACK pending = ack_listeners.remove(packet_id);
+        if (pending != null)
+            pending.cancelTimeout();
+        return pending;
+    }
+
+    /**
+     * Packet ids are given out in order, so the oldest pending ACK has the lowest id.
+     * Every id is passed once, it is cheaper than looking for the lowest key in the table.
+     *
+     * @return removed ACK, null if there are none
+     */
+    private PendingACK removeOldestACK()
+    {
+        while (true)
+        {
+            int id = oldest_ack_id.get();
+            if (id == (packet_id.get() & Integer.MAX_VALUE))
+                return null; // no more ids given out
+
+            PendingACK pending = ack_listeners.remove(id);
+            oldest_ack_id.compareAndSet(id, (id + 1) & Integer.MAX_VALUE);
+            if (pending != null)
+            {
+                pending.cancelTimeout();
+                return pending;
+            }
+        }
+    }
+
+    private void failPendingACKs()
+    {
+        for (PendingACK ack : ack_listeners.removeAll())
+        {
+            ack.cancelTimeout();
+            ack.fail();
+        }
+    }
+
+    /**
+     * @param maxPendingACKs maximum number of ACKs the session waits for at the same time, 0 for no limit
+     */
+    public void setMaxPendingACKs(int maxPendingACKs)
+    {
+        this.maxPendingACKs = maxPendingACKs;
+    }
+
+    public int getMaxPendingACKs()
+    {
+        return maxPendingACKs;
+    }
+
+    /**
+     * @param policy what to do with a new ACK when {@link #getMaxPendingACKs()} ACKs are pending
+     */
+    public void setACKOverflowPolicy(ACKOverflowPolicy policy)
+    {
+        this.ackOverflowPolicy = policy;
+    }
+
+    public ACKOverflowPolicy getACKOverflowPolicy()
+    {
+        return ackOverflowPolicy;
+    }
+
+    private final class PendingACK implements Runnable, ConcurrentIntMap.Entry
+    {
+        private final int                  id;
+        private final ACKListener          listener;
+        private volatile TimeoutWheel.Timeout timeout;
+
+        PendingACK(int id, ACKListener listener)
+        {
+            this.id = id;
+            this.listener = listener;
+        }
+
+        @Override
+        public int getKey()
+        {
+            return id;
+        }
+
+        void startTimeout()
+        {
+            if (!(listener instanceof ACKTimeoutListener))
+                return;
+
+            long delay = ((ACKTimeoutListener) listener).getTimeout();
+            if (delay > 0)
+            {
+                timeout = socketIOManager.timeouts.newTimeout(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        mailbox.execute(PendingACK.this);
+                    }
+                });
+                timeout.reset(delay);
+            }
+        }
+
+        void cancelTimeout()
+        {
+            if (timeout != null)
+                timeout.cancel();
+        }
+
+        /**
+         * ACK timeout. Runs in the mailbox
+         */
+        @Override
+        public void run()
+        {
+            if (!ack_listeners.remove(this))
+                return; // ACK came in the meantime
+
+            if (LOGGER.isLoggable(Level.FINE))
+                LOGGER.log(Level.FINE, "Session[" + sessionId + "]: ACK " + id + " timed out");
+
+            fail();
+        }
+
+        void fail()
+        {
+            if (!(listener instanceof ACKTimeoutListener))
+                return;
+
+            try
+            {
+                ((ACKTimeoutListener) listener).onTimeout();
+            }
+            catch (Throwable e)
+            {
+                if (LOGGER.isLoggable(Level.WARNING))
+                    LOGGER.log(Level.WARNING, "Session[" + sessionId + "]: Exception thrown by ACK listener", e);
+            }
+        }
     }
 
     @Override
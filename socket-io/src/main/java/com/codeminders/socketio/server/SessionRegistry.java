@@ -0,0 +1,125 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.server;
+
+import com.google.common.io.BaseEncoding;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sessions by id, split into shards so handshakes of many clients at once do not contend on one map.
+ * <p/>
+ * Session ids are 120 random bits from {@link SecureRandom}, encoded in 20 base64url characters.
+ * Every thread has its own generator and takes random bytes for {@link #IDS_PER_DRAW} ids at once.
+ */
+final class SessionRegistry
+{
+    private static final int ID_BYTES     = 15; // 20 characters, no padding
+    private static final int IDS_PER_DRAW = 64;
+
+    private static final BaseEncoding ID_ENCODING = BaseEncoding.base64Url().omitPadding();
+
+    private static final ThreadLocal<IdGenerator> GENERATOR = new ThreadLocal<IdGenerator>()
+    {
+        @Override
+        protected IdGenerator initialValue()
+        {
+            return new IdGenerator();
+        }
+    };
+
+    private final ConcurrentMap<String, Session>[] shards;
+    private final int                              mask;
+
+    /**
+     * @param shards number of shards, rounded up to a power of two
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    SessionRegistry(int shards)
+    {
+        int n = 1;
+        while (n < shards)
+            n <<= 1;
+
+        this.shards = new ConcurrentMap[n];
+        for (int i = 0; i < n; i++)
+            this.shards[i] = new ConcurrentHashMap<>();
+        this.mask = n - 1;
+    }
+
+    /**
+     * @return new random session id. It could be taken already, see {@link #add(Session)}
+     */
+    String newSessionId()
+    {
+        return GENERATOR.get().next();
+    }
+
+    /**
+     * @param session session to add
+     * @return false if there is a session with the same id already
+     */
+    boolean add(Session session)
+    {
+        return shard(session.getSessionId()).putIfAbsent(session.getSessionId(), session) == null;
+    }
+
+    Session get(String sessionId)
+    {
+        return shard(sessionId).get(sessionId);
+    }
+
+    void remove(String sessionId)
+    {
+        shard(sessionId).remove(sessionId);
+    }
+
+    private ConcurrentMap<String, Session> shard(String sessionId)
+    {
+        // the map uses the lower bits of the hash, the shard is chosen by the higher ones
+        int h = sessionId.hashCode();
+        return shards[((h ^ (h >>> 16)) >>> 8) & mask];
+    }
+
+    private static final class IdGenerator
+    {
+        private final SecureRandom random = new SecureRandom();
+        private final byte[]       bytes  = new byte[ID_BYTES * IDS_PER_DRAW];
+        private int                offset = bytes.length;
+
+        String next()
+        {
+            if (offset == bytes.length)
+            {
+                random.nextBytes(bytes);
+                offset = 0;
+            }
+
+            String id = ID_ENCODING.encode(bytes, offset, ID_BYTES);
+            offset += ID_BYTES;
+            return id;
+        }
+    }
+}
@@ -22,8 +22,12 @@
  */
 package com.codeminders.socketio.server;
 
+import com.codeminders.socketio.common.ConnectionState;
 import com.codeminders.socketio.common.DisconnectReason;
 import com.codeminders.socketio.common.SocketIOException;
+import com.codeminders.socketio.protocol.EventNames;
+import com.codeminders.socketio.protocol.LazyArgs;
+import com.codeminders.socketio.protocol.SocketIOProtocol;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.*;
@@ -34,10 +38,11 @@ import java.util.*;
 public class Socket implements Outbound, DisconnectListener, EventListener
 {
     private List<DisconnectListener>   disconnectListeners = new LinkedList<>();
-    private Map<String, EventListener> eventListeners      = new LinkedHashMap<>();
+    private EventListener[]            eventListeners      = new EventListener[0]; // by index in EventNames of the namespace
 
     private Session session; // Socket is Session + Namespace
     private Namespace namespace;
+    private Object auth;
 
     public Socket(Session session, Namespace namespace)
     {
@@ -50,6 +55,20 @@ public class Socket implements Outbound, DisconnectListener, EventListener
         return namespace.getId();
     }
 
+    /**
+     * @return authentication data sent by the client when connecting to the namespace, null if none.
+     *         Only Socket.IO 5 clients send it
+     */
+    public Object getAuth()
+    {
+        return auth;
+    }
+
+    void setAuth(Object auth)
+    {
+        this.auth = auth;
+    }
+
     /**
      * Set listener for a named event. Only one listener per event is allowed.
      *
@@ -58,7 +77,77 @@ public class Socket implements Outbound, DisconnectListener, EventListener
      */
     public void on(String eventName, EventListener listener)
     {
-        eventListeners.put(eventName, listener);
+        setListener(eventName, listener);
+    }
+
+    /**
+     * Set listener for a named event with the first argument bound to the given type.
+     * The argument is read from JSON straight into the type, without creating generic maps and lists.
+     * Only one listener per event is allowed.
+     *
+     * @param eventName event name
+     * @param type type of the first event argument
+     * @param listener event listener
+     */
+    public <T> void on(String eventName, Class<T> type, TypedEventListener<T> listener)
+    {
+        setListener(eventName, new TypedListener<>(type, listener));
+    }
+
+    /**
+     * Set listener for a named event which receives arguments as raw JSON.
+     * Arguments are parsed only when the listener accesses them.
+     * Only one listener per event is allowed.
+     *
+     * @param eventName event name
+     * @param listener event listener
+     */
+    public void on(String eventName, LazyEventListener listener)
+    {
+        setListener(eventName, new LazyListener(listener));
+    }
+
+    private void setListener(String eventName, EventListener listener)
+    {
+        int index = namespace.getEventNames().register(eventName);
+        if (index >= eventListeners.length)
+            eventListeners = Arrays.copyOf(eventListeners, namespace.getEventNames().size());
+
+        eventListeners[index] = listener;
+    }
+
+    private EventListener getListener(int nameIndex, String eventName)
+    {
+        if (nameIndex == -1)
+            nameIndex = namespace.getEventNames().indexOf(eventName);
+
+        EventListener[] listeners = eventListeners;
+        return nameIndex >= 0 && nameIndex < listeners.length ? listeners[nameIndex] : null;
+    }
+
+    /**
+     * @return names of the events listened to in the namespace of the socket
+     */
+    EventNames getEventNames()
+    {
+        return namespace.getEventNames();
+    }
+
+    /**
+     * @param eventName event name
+     * @return type of the first argument expected by the event listener, null if listener is not typed,
+     *         {@link LazyArgs} if listener expects raw arguments
+     */
+    Class<?> getArgumentType(String eventName)
+    {
+        EventListener listener = getListener(-1, eventName);
+        if (listener instanceof TypedListener)
+            return ((TypedListener<?>) listener).type;
+
+        if (listener instanceof LazyListener)
+            return LazyArgs.class;
+
+        return null;
     }
 
     /**
@@ -77,6 +166,28 @@ public class Socket implements Outbound, DisconnectListener, EventListener
         getSession().getConnection().emit(getNamespace(), name, args);
     }
 
+    /**
+     * Emits an event prepared with {@link Namespace#prepare(String, Object...)} without encoding it again.
+     *
+     * @param event prepared event. Must be prepared for the namespace of this socket
+     * @throws SocketIOException if IO error happens
+     */
+    public void emit(PreparedEvent event) throws SocketIOException
+    {
+        if (!event.getNamespace().equals(getNamespace()))
+            throw new IllegalArgumentException("Event is prepared for namespace " + event.getNamespace() +
+                    ", cannot emit it to " + getNamespace());
+
+        if (getSession().getConnectionState() != ConnectionState.CONNECTED)
+            throw new SocketIOClosedException();
+
+        // codec could be changed after the event is prepared
+        if (event.getCodec() == getSession().getPayloadCodec())
+            getSession().getConnection().send(event);
+        else
+            getSession().getConnection().send(event.getPacket());
+    }
+
     /**
      * Adds disconnect listener
      *
@@ -102,7 +213,15 @@ public class Socket implements Outbound, DisconnectListener, EventListener
     @Override
     public Object onEvent(String name, Object[] args, boolean ackRequested)
     {
-        EventListener listener = eventListeners.get(name);
+        return onEvent(-1, name, args, ackRequested);
+    }
+
+    /**
+     * @param nameIndex index of the name in {@link EventNames} of the namespace, -1 if unknown
+     */
+    Object onEvent(int nameIndex, String name, Object[] args, boolean ackRequested)
+    {
+        EventListener listener = getListener(nameIndex, name);
         if(listener == null)
             return null;
 
@@ -141,4 +260,51 @@ public class Socket implements Outbound, DisconnectListener, EventListener
     {
         return getSession().getConnection().getRequest();
     }
+
+    private static final class TypedListener<T> implements EventListener
+    {
+        private final Class<T>              type;
+        private final TypedEventListener<T> listener;
+
+        TypedListener(Class<T> type, TypedEventListener<T> listener)
+        {
+            this.type = type;
+            this.listener = listener;
+        }
+
+        @Override
+        public Object onEvent(String name, Object[] args, boolean ackRequested)
+        {
+            T data;
+            try
+            {
+                // arguments of BINARY_EVENT are not bound by the decoder and need conversion
+                data = SocketIOProtocol.convert(args.length > 0 ? args[0] : null, type);
+            }
+            catch (SocketIOProtocolException e)
+            {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+
+            return listener.onEvent(name, data, ackRequested);
+        }
+    }
+
+    private static final class LazyListener implements EventListener
+    {
+        private final LazyEventListener listener;
+
+        LazyListener(LazyEventListener listener)
+        {
+            this.listener = listener;
+        }
+
+        @Override
+        public Object onEvent(String name, Object[] args, boolean ackRequested)
+        {
+            // arguments of BINARY_EVENT and non-JSON codecs are decoded already
+            LazyArgs lazyArgs = args.length == 1 && args[0] instanceof LazyArgs ? (LazyArgs) args[0] : new LazyArgs(args);
+            return listener.onEvent(name, lazyArgs, ackRequested);
+        }
+    }
 }
@@ -25,6 +25,11 @@
  */
 package com.codeminders.socketio.server;
 
+import com.codeminders.socketio.protocol.EngineIOProtocol;
+import com.codeminders.socketio.protocol.JsonPayloadCodec;
+import com.codeminders.socketio.protocol.PayloadCodec;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import javax.servlet.http.HttpSession;
 import java.util.Map;
 import java.util.concurrent.*;
@@ -34,24 +39,22 @@ import java.util.concurrent.*;
  */
 public final class SocketIOManager
 {
-    private static final int SESSION_ID_LEN = 20;
-    private static final char[] SYMBOLS;
+    private final Map<String, Namespace> namespaces = new ConcurrentHashMap<>();
+    private final SessionRegistry        sessions   =
+            new SessionRegistry(4 * Runtime.getRuntime().availableProcessors());
+    private TransportProvider transportProvider;
+    private volatile PayloadCodec payloadCodec = JsonPayloadCodec.INSTANCE;
 
-    static
-    {
-        StringBuilder sb = new StringBuilder();
-        for (char ch = 'A'; ch <= 'Z'; ch++)
-            sb.append(ch);
-        for (char ch = 'a'; ch <= 'z'; ch++)
-            sb.append(ch);
-        SYMBOLS = sb.toString().toCharArray();
-    }
+    // threads are daemons, so they do not keep JVM running if the servlet is not destroyed
+    final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1,
+            new ThreadFactoryBuilder().setNameFormat("socketio-timer-%d").setDaemon(true).build());
 
-    private final Map<String, Namespace>         namespaces = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Session> sessions   = new ConcurrentHashMap<>();
-    private TransportProvider transportProvider;
+    // runs session mailboxes which are not run by container threads, e.g. after timeouts
+    final ExecutorService workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("socketio-worker-%d").setDaemon(true).build());
 
-    final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+    // resolution of 100ms, 512 buckets make a round of 51.2s
+    final TimeoutWheel timeouts = new TimeoutWheel(executor, 100, 512);
 
     private static SocketIOManager instance = new SocketIOManager();
 
@@ -62,20 +65,6 @@ public final class SocketIOManager
         return instance;
     }
 
-    private String generateSessionId()
-    {
-        while(true)
-        {
-            StringBuilder sb = new StringBuilder(SESSION_ID_LEN);
-            for (int i = 0; i < SESSION_ID_LEN; i++)
-                sb.append(SYMBOLS[ThreadLocalRandom.current().nextInt(SYMBOLS.length)]);
-
-            String id = sb.toString();
-            if(sessions.get(id) == null)
-                return id;
-        }
-    }
-
     /**
      * Creates new session
      *
@@ -96,8 +85,25 @@ public final class SocketIOManager
      */
     public Session createSession(HttpSession httpSession)
     {
-        Session session = new Session(this, generateSessionId(), httpSession);
-        sessions.put(session.getSessionId(), session);
+        return createSession(httpSession, EngineIOProtocol.PROTOCOL_V3);
+    }
+
+    /**
+     * Creates new session
+     *
+     * @param httpSession The HTTP session of the connecting client
+     * @param protocolVersion Engine.IO protocol version of the client
+     * @return new session
+     */
+    public Session createSession(HttpSession httpSession, int protocolVersion)
+    {
+        Session session;
+        do
+        {
+            session = new Session(this, sessions.newSessionId(), httpSession, protocolVersion);
+        }
+        while (!sessions.add(session)); // id collision, practically never happens
+
         return session;
     }
 
@@ -149,4 +155,31 @@ public final class SocketIOManager
     {
         this.transportProvider = transportProvider;
     }
+
+    /**
+     * Stops timer and worker threads. Queued session tasks are still run, new ones are dropped
+     */
+    void shutdown()
+    {
+        executor.shutdown();
+        workers.shutdown();
+    }
+
+    public PayloadCodec getPayloadCodec()
+    {
+        return payloadCodec;
+    }
+
+    /**
+     * Sets codec used to encode and decode Socket.IO packets of all sessions.
+     * Must match the parser configured on the client side.
+     *
+     * @param payloadCodec codec, {@link JsonPayloadCodec#INSTANCE} by default
+     */
+    public void setPayloadCodec(PayloadCodec payloadCodec)
+    {
+        assert (payloadCodec != null);
+
+        this.payloadCodec = payloadCodec;
+    }
 }
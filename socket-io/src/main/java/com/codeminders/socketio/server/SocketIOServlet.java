@@ -26,6 +26,7 @@
 package com.codeminders.socketio.server;
 
 import com.codeminders.socketio.protocol.EngineIOProtocol;
+import com.codeminders.socketio.protocol.PayloadCodec;
 import com.codeminders.socketio.protocol.SocketIOProtocol;
 import com.google.common.io.ByteStreams;
 
@@ -76,6 +77,11 @@ public abstract class SocketIOServlet extends HttpServlet
         SocketIOManager.getInstance().setTransportProvider(transportProvider);
     }
 
+    public void setPayloadCodec(PayloadCodec payloadCodec)
+    {
+        SocketIOManager.getInstance().setPayloadCodec(payloadCodec);
+    }
+
     @Override
     public void init() throws ServletException
     {
@@ -89,6 +95,7 @@ public abstract class SocketIOServlet extends HttpServlet
     public void destroy()
     {
         SocketIOManager.getInstance().getTransportProvider().destroy();
+        SocketIOManager.getInstance().shutdown();
         super.destroy();
     }
 
@@ -0,0 +1,221 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timing wheel for session timeouts.
+ * <p/>
+ * Every timeout keeps its deadline as a timestamp, so resetting it is a single write,
+ * without creating and cancelling scheduled tasks. One periodic task turns the wheel and
+ * checks timeouts of the current bucket in a batch. Timeouts with later deadlines are moved to the bucket
+ * of their new deadline, expired ones are fired. Cancelled timeouts are dropped when their bucket comes.
+ * <p/>
+ * Timeouts fire up to one tick late. Buckets are accessed only by the wheel task, new timeouts are
+ * handed over to it through a queue.
+ */
+final class TimeoutWheel
+{
+    private static final Logger LOGGER = Logger.getLogger(TimeoutWheel.class.getName());
+
+    private static final long CANCELLED = 0;
+
+    private final ScheduledExecutorService executor;
+    private final long                     origin = System.nanoTime(); // ticks are counted from here
+    private final long                     tickNanos;
+    private final List<Timeout>[]          buckets;
+    private final Queue<Timeout>           added   = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean            started = new AtomicBoolean();
+
+    private long tick; // number of the last processed tick, accessed by the wheel task only
+
+    /**
+     * @param executor   executor to run the wheel and the timeout tasks
+     * @param tickMillis resolution of the timeouts
+     * @param size       number of buckets
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimeoutWheel(ScheduledExecutorService executor, long tickMillis, int size)
+    {
+        this.executor = executor;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.buckets = new List[size];
+        for (int i = 0; i < size; i++)
+            buckets[i] = new ArrayList<>();
+    }
+
+    /**
+     * Creates timeout, which is not started until {@link Timeout#reset(long)} is called
+     *
+     * @param task task to run when timeout expires
+     * @return new timeout
+     */
+    Timeout newTimeout(Runnable task)
+    {
+        return new Timeout(this, task);
+    }
+
+    static final class Timeout
+    {
+        // timeouts are reset by random sessions, keeping the state in the Timeout saves cache misses
+        private static final AtomicLongFieldUpdater<Timeout> DEADLINE =
+                AtomicLongFieldUpdater.newUpdater(Timeout.class, "deadline");
+        private static final AtomicIntegerFieldUpdater<Timeout> SCHEDULED =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "scheduled");
+
+        private final TimeoutWheel  wheel;
+        private final Runnable      task;
+        private volatile long       deadline  = CANCELLED; // System.nanoTime()
+        private volatile int        scheduled;             // 1 if timeout is in the wheel
+
+        private Timeout(TimeoutWheel wheel, Runnable task)
+        {
+            this.wheel = wheel;
+            this.task = task;
+        }
+
+        /**
+         * (Re)starts the timeout
+         *
+         * @param delay delay in milliseconds
+         */
+        void reset(long delay)
+        {
+            long d = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            deadline = d == CANCELLED ? 1 : d;
+            if (scheduled == 0 && SCHEDULED.compareAndSet(this, 0, 1))
+                wheel.add(this);
+        }
+
+        void cancel()
+        {
+            deadline = CANCELLED;
+        }
+    }
+
+    private void add(Timeout timeout)
+    {
+        added.add(timeout);
+        if (!started.get() && started.compareAndSet(false, true))
+        {
+            tick = toTick(System.nanoTime());
+            executor.scheduleAtFixedRate(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    TimeoutWheel.this.run();
+                }
+            }, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void run()
+    {
+        long now = System.nanoTime();
+
+        for (Timeout timeout; (timeout = added.poll()) != null; )
+            place(timeout);
+
+        List<Timeout> expired = new ArrayList<>();
+        for (long last = toTick(now); tick < last; )
+        {
+            tick++;
+
+            List<Timeout> bucket = buckets[(int) (tick % buckets.length)];
+            if (bucket.isEmpty())
+                continue;
+
+            Timeout[] timeouts = bucket.toArray(new Timeout[bucket.size()]);
+            bucket.clear();
+            for (Timeout timeout : timeouts)
+            {
+                long deadline = timeout.deadline;
+                if (deadline == CANCELLED)
+                    unschedule(timeout);
+                else if (deadline - now > 0)
+                    place(timeout);
+                else if (Timeout.DEADLINE.compareAndSet(timeout, deadline, CANCELLED))
+                {
+                    expired.add(timeout);
+                    unschedule(timeout);
+                }
+                else
+                    place(timeout); // reset concurrently
+            }
+        }
+
+        for (Timeout timeout : expired)
+        {
+            try
+            {
+                timeout.task.run();
+            }
+            catch (Throwable e)
+            {
+                // wheel task must not die, otherwise no timeout fires anymore
+                if (LOGGER.isLoggable(Level.WARNING))
+                    LOGGER.log(Level.WARNING, "Timeout task failed", e);
+            }
+        }
+    }
+
+    private void place(Timeout timeout)
+    {
+        long deadline = timeout.deadline;
+        if (deadline == CANCELLED)
+        {
+            unschedule(timeout);
+            return;
+        }
+
+        // never into the bucket being processed, it would be checked only after the whole round
+        long t = Math.max(toTick(deadline), tick + 1);
+        buckets[(int) (t % buckets.length)].add(timeout);
+    }
+
+    private long toTick(long nanos)
+    {
+        return (nanos - origin) / tickNanos;
+    }
+
+    private void unschedule(Timeout timeout)
+    {
+        timeout.scheduled = 0;
+
+        // reset could happen after the deadline was checked, but before the timeout was unscheduled
+        if (timeout.deadline != CANCELLED && Timeout.SCHEDULED.compareAndSet(timeout, 0, 1))
+            place(timeout);
+    }
+}
@@ -55,6 +55,14 @@ public interface TransportConnection
     void send(EngineIOPacket packet) throws SocketIOException;
     void send(SocketIOPacket packet) throws SocketIOException;
 
+    /**
+     * Sends Engine.IO packets of the event as they are. Packets of the event are not mixed with other packets.
+     *
+     * @param event prepared event, encoded with the codec of the session
+     * @throws SocketIOException if IO error happens
+     */
+    void send(PreparedEvent event) throws SocketIOException;
+
     void disconnect(String namespace, boolean closeConnection);
 
     /**
@@ -25,15 +25,17 @@
 package com.codeminders.socketio.server.transport;
 
 import com.codeminders.socketio.common.ConnectionState;
-import com.codeminders.socketio.protocol.EngineIOProtocol;
+import com.codeminders.socketio.protocol.HandshakeTemplate;
 import com.codeminders.socketio.server.*;
 
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,6 +43,20 @@ public abstract class AbstractHttpTransport extends AbstractTransport
 {
     private static final Logger LOGGER = Logger.getLogger(AbstractHttpTransport.class.getName());
 
+    // websocket transport is looked up on handshake, it is not known yet when this transport is initialized
+    private HandshakeTemplate handshake;
+    private HandshakeTemplate websocketHandshake;
+
+    @Override
+    public void init(ServletConfig config, ServletContext context)
+            throws ServletException
+    {
+        super.init(config, context);
+
+        handshake = createHandshakeTemplate();
+        websocketHandshake = createHandshakeTemplate("websocket");
+    }
+
     @Override
     public void handle(HttpServletRequest request,
                              HttpServletResponse response,
@@ -55,15 +71,11 @@ public abstract class AbstractHttpTransport extends AbstractTransport
 
         if (session.getConnectionState() == ConnectionState.CONNECTING)
         {
-
-            ArrayList<String> upgrades = new ArrayList<>();
+            HandshakeTemplate template = handshake;
             if(socketIOManager.getTransportProvider().getTransport(TransportType.WEB_SOCKET) != null)
-                upgrades.add("websocket");
+                template = websocketHandshake;
 
-            connection.send(EngineIOProtocol.createHandshakePacket(session.getSessionId(),
-                    upgrades.toArray(new String[upgrades.size()]),
-                    getConfig().getPingInterval(Config.DEFAULT_PING_INTERVAL),
-                    getConfig().getTimeout(Config.DEFAULT_PING_TIMEOUT)));
+            connection.send(template.createPacket(session.getSessionId()));
 
             connection.handle(request, response); // called to send the handshake packet
             session.onConnect(connection);
@@ -23,6 +23,7 @@
 package com.codeminders.socketio.server.transport;
 
 import com.codeminders.socketio.protocol.EngineIOProtocol;
+import com.codeminders.socketio.protocol.HandshakeTemplate;
 import com.codeminders.socketio.server.*;
 
 import javax.servlet.ServletConfig;
@@ -30,6 +31,7 @@ import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
+import java.util.Locale;
 
 /**
  * @author Alexander Sova (bird@codeminders.com)
@@ -39,6 +41,9 @@ public abstract class AbstractTransport implements Transport
 {
     private Config config;
 
+    private int               maxPendingACKs;
+    private ACKOverflowPolicy ackOverflowPolicy;
+
     @Override
     public void destroy()
     {
@@ -49,6 +54,17 @@ public abstract class AbstractTransport implements Transport
             throws ServletException
     {
         this.config = new ServletBasedConfig(config, getType().toString());
+
+        maxPendingACKs = this.config.getInt(Config.MAX_PENDING_ACKS, Config.DEFAULT_MAX_PENDING_ACKS);
+        String policy = this.config.getString(Config.ACK_OVERFLOW_POLICY, ACKOverflowPolicy.DROP_OLDEST.name());
+        try
+        {
+            ackOverflowPolicy = ACKOverflowPolicy.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new ServletException("Invalid " + Config.ACK_OVERFLOW_POLICY + ": " + policy, e);
+        }
     }
 
     protected final Config getConfig()
@@ -56,6 +72,36 @@ public abstract class AbstractTransport implements Transport
         return config;
     }
 
+    /**
+     * Creates template of the handshake packet for sessions of this transport
+     *
+     * @param upgrades transports the sessions could be upgraded to
+     * @return handshake template
+     */
+    protected final HandshakeTemplate createHandshakeTemplate(String... upgrades)
+    {
+        return EngineIOProtocol.createHandshakeTemplate(upgrades,
+                config.getPingInterval(Config.DEFAULT_PING_INTERVAL),
+                config.getTimeout(Config.DEFAULT_PING_TIMEOUT));
+    }
+
+    /**
+     * Creates new session with the settings of this transport.
+     * Sessions keep them when they are upgraded to another transport.
+     *
+     * @param socketIOManager session manager
+     * @param httpSession     HTTP session of the connecting client
+     * @param protocolVersion Engine.IO protocol version of the client
+     * @return new session
+     */
+    public final Session createSession(SocketIOManager socketIOManager, HttpSession httpSession, int protocolVersion)
+    {
+        Session session = socketIOManager.createSession(httpSession, protocolVersion);
+        session.setMaxPendingACKs(maxPendingACKs);
+        session.setACKOverflowPolicy(ackOverflowPolicy);
+        return session;
+    }
+
     protected final TransportConnection createConnection(Session session)
     {
         TransportConnection connection = createConnection();
@@ -73,7 +119,8 @@ public abstract class AbstractTransport implements Transport
             session = sessionManager.getSession(sessionId);
 
         if(session == null)
-            return createConnection(sessionManager.createSession(request.getSession()));
+            return createConnection(createSession(sessionManager, request.getSession(),
+                    EngineIOProtocol.parseVersion(request.getParameter(EngineIOProtocol.VERSION))));
 
         TransportConnection activeConnection = session.getConnection();
 
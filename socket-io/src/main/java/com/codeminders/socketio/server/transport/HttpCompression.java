@@ -0,0 +1,231 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.server.transport;
+
+import com.codeminders.socketio.server.SocketIOProtocolException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * gzip and deflate content encoding for polling requests and responses.
+ * <p/>
+ * Deflaters are expensive to create and hold native memory, so they are pooled
+ * together with their output chunk and checksum and shared by all connections.
+ */
+final class HttpCompression
+{
+    static final String GZIP    = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private static final int MAX_POOLED  = 32;
+    private static final int CHUNK_SIZE  = 4096;
+
+    // bodies bigger than that are not kept between polls
+    private static final int MAX_RETAINED_BODY = 64 * 1024;
+
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    // gzip uses raw deflate data wrapped into its own header and trailer, deflate uses zlib format
+    private static final BlockingQueue<Encoder> gzipEncoders = new ArrayBlockingQueue<>(MAX_POOLED);
+    private static final BlockingQueue<Encoder> zlibEncoders = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    private static final class Encoder
+    {
+        final Deflater deflater;
+        final byte[]   chunk = new byte[CHUNK_SIZE];
+        final CRC32    crc   = new CRC32();
+
+        Encoder(boolean gzip)
+        {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+        }
+    }
+
+    /**
+     * Response body collected before it is compressed. Gives the encoder direct access
+     * to its internal array so the body is not copied.
+     */
+    static final class Body extends ByteArrayOutputStream
+    {
+        Body()
+        {
+            super(1024);
+        }
+
+        /**
+         * Compresses the content and writes it to the stream
+         *
+         * @param encoding {@link #GZIP} or {@link #DEFLATE}
+         */
+        void encodeTo(String encoding, OutputStream os)
+                throws IOException
+        {
+            encode(encoding, buf, count, os);
+        }
+
+        /**
+         * @return true if the buffer is small enough to be reused for the next response
+         */
+        boolean isReusable()
+        {
+            return buf.length <= MAX_RETAINED_BODY;
+        }
+    }
+
+    private HttpCompression()
+    {
+    }
+
+    /**
+     * @param acceptEncoding value of Accept-Encoding request header, could be null
+     * @return {@link #GZIP}, {@link #DEFLATE} or null if client does not accept either
+     */
+    static String selectEncoding(String acceptEncoding)
+    {
+        if (acceptEncoding == null)
+            return null;
+
+        boolean deflate = false;
+        for (String token : acceptEncoding.split(","))
+        {
+            String name = token;
+            int semicolon = token.indexOf(';');
+            if (semicolon != -1)
+            {
+                name = token.substring(0, semicolon);
+                if (isRejected(token.substring(semicolon + 1)))
+                    continue;
+            }
+            name = name.trim();
+
+            if (GZIP.equalsIgnoreCase(name) || "*".equals(name))
+                return GZIP;
+            if (DEFLATE.equalsIgnoreCase(name))
+                deflate = true;
+        }
+
+        return deflate ? DEFLATE : null;
+    }
+
+    private static boolean isRejected(String params)
+    {
+        for (String param : params.split(";"))
+        {
+            param = param.trim();
+            if (param.startsWith("q="))
+            {
+                try
+                {
+                    return Float.parseFloat(param.substring(2)) <= 0;
+                }
+                catch (NumberFormatException e)
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compresses the data and writes it to the stream
+     *
+     * @param encoding {@link #GZIP} or {@link #DEFLATE}
+     */
+    static void encode(String encoding, byte[] data, int len, OutputStream os)
+            throws IOException
+    {
+        boolean gzip = GZIP.equals(encoding);
+        BlockingQueue<Encoder> pool = gzip ? gzipEncoders : zlibEncoders;
+
+        Encoder encoder = pool.poll();
+        if (encoder == null)
+            encoder = new Encoder(gzip);
+
+        Deflater deflater = encoder.deflater;
+        try
+        {
+            if (gzip)
+                os.write(GZIP_HEADER);
+
+            deflater.setInput(data, 0, len);
+            deflater.finish();
+            byte[] chunk = encoder.chunk;
+            while (!deflater.finished())
+                os.write(chunk, 0, deflater.deflate(chunk));
+
+            if (gzip)
+            {
+                CRC32 crc = encoder.crc;
+                crc.update(data, 0, len);
+                writeInt(os, (int) crc.getValue());
+                writeInt(os, len);
+            }
+        }
+        finally
+        {
+            deflater.reset();
+            encoder.crc.reset();
+            if (!pool.offer(encoder))
+                deflater.end();
+        }
+    }
+
+    private static void writeInt(OutputStream os, int v)
+            throws IOException
+    {
+        // little endian as required by RFC 1952
+        os.write(v);
+        os.write(v >>> 8);
+        os.write(v >>> 16);
+        os.write(v >>> 24);
+    }
+
+    /**
+     * @param contentEncoding value of Content-Encoding request header, could be null
+     * @return stream of decompressed request body
+     * @throws SocketIOProtocolException if encoding is not supported
+     */
+    static InputStream decode(String contentEncoding, InputStream is)
+            throws IOException
+    {
+        if (contentEncoding == null || contentEncoding.equalsIgnoreCase("identity"))
+            return is;
+        if (contentEncoding.equalsIgnoreCase(GZIP))
+            return new GZIPInputStream(is);
+        if (contentEncoding.equalsIgnoreCase(DEFLATE))
+            return new InflaterInputStream(is);
+
+        throw new SocketIOProtocolException("Unsupported content encoding of polling request: " + contentEncoding);
+    }
+}
@@ -4,16 +4,23 @@ import com.codeminders.socketio.common.SocketIOException;
 import com.codeminders.socketio.protocol.BinaryPacket;
 import com.codeminders.socketio.protocol.EngineIOPacket;
 import com.codeminders.socketio.protocol.EngineIOProtocol;
+import com.codeminders.socketio.protocol.JsonPayloadCodec;
+import com.codeminders.socketio.protocol.PayloadCodec;
 import com.codeminders.socketio.protocol.SocketIOPacket;
+import com.codeminders.socketio.server.Config;
+import com.codeminders.socketio.server.PreparedEvent;
 import com.codeminders.socketio.server.SocketIOProtocolException;
 import com.codeminders.socketio.server.Transport;
-import com.google.common.io.CharStreams;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
@@ -27,18 +34,46 @@ public class XHRTransportConnection extends AbstractTransportConnection
 {
     private static final String ALLOWED_ORIGINS   = "allowedOrigins";
     private static final String ALLOW_ALL_ORIGINS = "allowAllOrigins";
+    private static final String COMPRESSION       = "compression";
+    private static final String COMPRESSION_THRESHOLD = "compressionThreshold";
+
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
 
     private static final Logger LOGGER = Logger.getLogger(XHRTransportConnection.class.getName());
 
     private BlockingQueue<EngineIOPacket> packets = new LinkedBlockingDeque<>();
 
+    // reusable buffer to encode outgoing packets into. guarded by itself
+    private final ByteArrayOutputStream encodeBuffer = new ByteArrayOutputStream(1024);
+
+    // response body kept between compressed polls. taken by the poll that uses it
+    private HttpCompression.Body body;
+
     private boolean done = false;
 
+    private boolean compression;
+    private int     compressionThreshold;
+    private int     maxHttpBufferSize;
+
     public XHRTransportConnection(Transport transport)
     {
         super(transport);
     }
 
+    @Override
+    protected void init()
+    {
+        getSession().setPingInterval(getConfig().getPingInterval(Config.DEFAULT_PING_INTERVAL));
+
+        // server pings Engine.IO 4 clients and closes the session if they stop answering
+        if (getSession().getProtocolVersion() >= EngineIOProtocol.PROTOCOL_V4)
+            getSession().setTimeout(getConfig().getTimeout(Config.DEFAULT_PING_TIMEOUT));
+
+        compression = getConfig().getBoolean(COMPRESSION, false);
+        compressionThreshold = getConfig().getInt(COMPRESSION_THRESHOLD, DEFAULT_COMPRESSION_THRESHOLD);
+        maxHttpBufferSize = getConfig().getInt(Config.MAX_HTTP_BUFFER_SIZE, Config.DEFAULT_MAX_HTTP_BUFFER_SIZE);
+    }
+
     @Override
     public void handle(HttpServletRequest request, HttpServletResponse response) throws IOException
     {
@@ -63,24 +98,39 @@ public class XHRTransportConnection extends AbstractTransportConnection
             }
         }
 
+        boolean records = getSession().getProtocolVersion() >= EngineIOProtocol.PROTOCOL_V4;
+
         if ("POST".equals(request.getMethod())) //incoming
         {
             response.setContentType("text/plain");
 
+            // declared length is checked here, actual length is checked by the decoder while reading
+            if (request.getContentLength() > maxHttpBufferSize)
+            {
+                response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+                return;
+            }
+
             String contentType = request.getContentType();
-            if (contentType.startsWith("text/"))
+            String contentEncoding = compression ? request.getHeader("Content-Encoding") : null;
+            if (records)
+            {
+                // Engine.IO 4 payload is always text, binary packets are base64 encoded
+                for (EngineIOPacket packet : EngineIOProtocol.decodeRecordPayload(getReader(request, contentEncoding), maxHttpBufferSize))
+                    getSession().onPacket(packet, this);
+            }
+            else if (contentType.startsWith("text/"))
             {
                 // text encoding
-                String payload = CharStreams.toString(request.getReader());
-
-                for (EngineIOPacket packet : EngineIOProtocol.decodePayload(payload))
+                for (EngineIOPacket packet : EngineIOProtocol.decodePayload(getReader(request, contentEncoding), maxHttpBufferSize))
                     getSession().onPacket(packet, this);
             }
             else
             if (contentType.startsWith("application/octet-stream"))
             {
                 // binary encoding
-                for (EngineIOPacket packet : EngineIOProtocol.binaryDecodePayload(request.getInputStream()))
+                InputStream is = HttpCompression.decode(contentEncoding, request.getInputStream());
+                for (EngineIOPacket packet : EngineIOProtocol.binaryDecodePayload(is, maxHttpBufferSize))
                     getSession().onPacket(packet, this);
             }
             else
@@ -91,16 +141,38 @@ public class XHRTransportConnection extends AbstractTransportConnection
         }
         else if ("GET".equals(request.getMethod())) //outgoing
         {
-            response.setContentType("application/octet-stream");
+            // clients without binary support ask for text payload with base64 encoded binary packets
+            boolean base64 = !records && isSet(request.getParameter(EngineIOProtocol.BASE64_FLAG));
+
+            response.setContentType(records || base64 ? "text/plain; charset=UTF-8" : "application/octet-stream");
             try
             {
-
-                OutputStream os = response.getOutputStream();
+                // compressed response needs to be buffered to know its size before it is sent
+                HttpCompression.Body body = compression ? takeBody() : null;
+                OutputStream os = body != null ? body : response.getOutputStream();
+                boolean first = true;
                 for (EngineIOPacket packet = packets.take(); packet != null; packet = packets.poll())
                 {
                     if(done)
                         break;
-                    EngineIOProtocol.binaryEncode(packet, os);
+
+                    if (records)
+                    {
+                        if (!first)
+                            os.write(EngineIOProtocol.RECORD_SEPARATOR);
+                        EngineIOProtocol.encodeRecord(packet, os);
+                    }
+                    else if (base64)
+                        EngineIOProtocol.base64Encode(packet, os);
+                    else
+                        EngineIOProtocol.binaryEncode(packet, os);
+                    first = false;
+                }
+
+                if (body != null)
+                {
+                    writeBody(request, response, body);
+                    releaseBody(body);
                 }
 
                 response.flushBuffer();
@@ -118,6 +190,56 @@ public class XHRTransportConnection extends AbstractTransportConnection
         }
     }
 
+    private static boolean isSet(String flag)
+    {
+        return flag != null && !flag.isEmpty() && !"0".equals(flag) && !"false".equals(flag);
+    }
+
+    private Reader getReader(HttpServletRequest request, String contentEncoding) throws IOException
+    {
+        if (contentEncoding == null)
+            return request.getReader();
+
+        String charset = request.getCharacterEncoding();
+        return new InputStreamReader(HttpCompression.decode(contentEncoding, request.getInputStream()),
+                charset == null ? StandardCharsets.UTF_8.name() : charset);
+    }
+
+    private synchronized HttpCompression.Body takeBody()
+    {
+        HttpCompression.Body b = body;
+        body = null;
+        return b != null ? b : new HttpCompression.Body();
+    }
+
+    private synchronized void releaseBody(HttpCompression.Body b)
+    {
+        if (b.isReusable())
+        {
+            b.reset();
+            body = b;
+        }
+    }
+
+    private void writeBody(HttpServletRequest request, HttpServletResponse response, HttpCompression.Body body)
+            throws IOException
+    {
+        response.addHeader("Vary", "Accept-Encoding");
+
+        // small polls like NOOP or PONG get bigger when compressed
+        String encoding = body.size() < compressionThreshold ? null :
+                HttpCompression.selectEncoding(request.getHeader("Accept-Encoding"));
+        if (encoding == null)
+        {
+            response.setContentLength(body.size());
+            body.writeTo(response.getOutputStream());
+            return;
+        }
+
+        response.setHeader("Content-Encoding", encoding);
+        body.encodeTo(encoding, response.getOutputStream());
+    }
+
     @Override
     public void abort()
     {
@@ -141,11 +263,34 @@ public class XHRTransportConnection extends AbstractTransportConnection
     @Override
     public void send(SocketIOPacket packet) throws SocketIOException
     {
-        send(EngineIOProtocol.createMessagePacket(packet.encode()));
-        if(packet instanceof BinaryPacket)
+        PayloadCodec codec = getSession().getPayloadCodec();
+
+        // keeping the packet and its attachments together in the queue
+        synchronized (encodeBuffer)
+        {
+            if (!(codec instanceof JsonPayloadCodec))
+            {
+                for (EngineIOPacket p : codec.encode(packet))
+                    send(p);
+                return;
+            }
+
+            send(EngineIOProtocol.createMessagePacket(packet, encodeBuffer));
+            if (packet instanceof BinaryPacket)
+            {
+                for (InputStream is : ((BinaryPacket) packet).getAttachments())
+                    send(EngineIOProtocol.createMessagePacket(is));
+            }
+        }
+    }
+
+    @Override
+    public void send(PreparedEvent event) throws SocketIOException
+    {
+        synchronized (encodeBuffer)
         {
-            for (InputStream is : ((BinaryPacket)packet).getAttachments())
-                send(EngineIOProtocol.createMessagePacket(is));
+            for (EngineIOPacket packet : event.getPackets())
+                send(packet);
         }
     }
 }
@@ -22,15 +22,45 @@
  */
 package com.codeminders.socketio.server.transport.websocket;
 
+import com.codeminders.socketio.server.Config;
+import com.codeminders.socketio.server.ServletBasedConfig;
+import com.codeminders.socketio.server.TransportType;
+
+import javax.servlet.ServletConfig;
+import javax.websocket.Extension;
 import javax.websocket.HandshakeResponse;
 import javax.websocket.server.HandshakeRequest;
 import javax.websocket.server.ServerEndpointConfig;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Adds handshake request information to user properties
+ * and negotiates permessage-deflate extension (RFC 7692) according to the configuration.
+ * <p/>
+ * Compression itself is done by the websocket container.
+ * Configuration parameters (could be prefixed with "websocket."):
+ * <ul>
+ *     <li>{@code permessageDeflate} - allow compression if client requests it, true by default</li>
+ *     <li>{@code serverContextTakeover} - keep compression context between outgoing messages, true by default</li>
+ *     <li>{@code clientContextTakeover} - allow client to keep compression context between incoming messages,
+ *     true by default</li>
+ * </ul>
+ * Without context takeover every message is compressed on its own.
+ * That gives worse ratio for small repetitive messages, but lets an endpoint reset its compression state.
  */
 public class WebsocketConfigurator extends ServerEndpointConfig.Configurator
 {
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private static final String DEFLATE                 = "permessageDeflate";
+    private static final String SERVER_CONTEXT_TAKEOVER = "serverContextTakeover";
+    private static final String CLIENT_CONTEXT_TAKEOVER = "clientContextTakeover";
+
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
     @Override
     public void modifyHandshake(ServerEndpointConfig config,
                                 HandshakeRequest request,
@@ -38,4 +68,104 @@ public class WebsocketConfigurator extends ServerEndpointConfig.Configurator
     {
         config.getUserProperties().put(HandshakeRequest.class.getName(), request);
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<Extension> getNegotiatedExtensions(List<Extension> installed, List<Extension> requested)
+    {
+        List<Extension> negotiated = super.getNegotiatedExtensions(installed, requested);
+
+        ServletConfig servletConfig = ServletConfigHolder.getInstance().getConfig();
+        if (servletConfig == null)
+            return negotiated;
+
+        Config config = new ServletBasedConfig(servletConfig, TransportType.WEB_SOCKET.toString());
+        boolean enabled = config.getBoolean(DEFLATE, true);
+        boolean serverContextTakeover = config.getBoolean(SERVER_CONTEXT_TAKEOVER, true);
+        boolean clientContextTakeover = config.getBoolean(CLIENT_CONTEXT_TAKEOVER, true);
+
+        if (enabled && serverContextTakeover && clientContextTakeover)
+            return negotiated;
+
+        List<Extension> result = new ArrayList<>(negotiated.size());
+        for (Extension extension : negotiated)
+        {
+            if (!PERMESSAGE_DEFLATE.equals(extension.getName()))
+                result.add(extension);
+            else if (enabled)
+                result.add(new DeflateExtension(extension, serverContextTakeover, clientContextTakeover));
+        }
+        return result;
+    }
+
+    /**
+     * Client offer with context takeover parameters added
+     */
+    private static final class DeflateExtension implements Extension
+    {
+        private final List<Parameter> parameters;
+
+        DeflateExtension(Extension offer, boolean serverContextTakeover, boolean clientContextTakeover)
+        {
+            List<Parameter> list = new ArrayList<>(offer.getParameters());
+            if (!serverContextTakeover && !contains(list, SERVER_NO_CONTEXT_TAKEOVER))
+                list.add(new FlagParameter(SERVER_NO_CONTEXT_TAKEOVER));
+            if (!clientContextTakeover && !contains(list, CLIENT_NO_CONTEXT_TAKEOVER))
+                list.add(new FlagParameter(CLIENT_NO_CONTEXT_TAKEOVER));
+            this.parameters = Collections.unmodifiableList(list);
+        }
+
+        private static boolean contains(List<Parameter> parameters, String name)
+        {
+            for (Parameter parameter : parameters)
+                if (name.equals(parameter.getName()))
+                    return true;
+            return false;
+        }
+
+        @Override
+        public String getName()
+        {
+            return PERMESSAGE_DEFLATE;
+        }
+
+        @Override
+        public List<Parameter> getParameters()
+        {
+            return parameters;
+        }
+
+        @Override
+        public String toString()
+        {
+            return PERMESSAGE_DEFLATE + parameters;
+        }
+    }
+
+    private static final class FlagParameter implements Extension.Parameter
+    {
+        private final String name;
+
+        FlagParameter(String name)
+        {
+            this.name = name;
+        }
+
+        @Override
+        public String getName()
+        {
+            return name;
+        }
+
+        @Override
+        public String getValue()
+        {
+            return null;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name;
+        }
+    }
+}
@@ -25,12 +25,16 @@
  */
 package com.codeminders.socketio.server.transport.websocket;
 
+import com.codeminders.socketio.protocol.HandshakeTemplate;
 import com.codeminders.socketio.server.SocketIOManager;
 import com.codeminders.socketio.server.TransportConnection;
 import com.codeminders.socketio.server.TransportType;
 import com.codeminders.socketio.server.transport.AbstractTransport;
 import com.codeminders.socketio.server.transport.AbstractTransportConnection;
 
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -40,6 +44,25 @@ public final class WebsocketTransport extends AbstractTransport
 {
     private static final Logger LOGGER = Logger.getLogger(WebsocketTransport.class.getName());
 
+    private HandshakeTemplate handshake;
+
+    @Override
+    public void init(ServletConfig config, ServletContext context)
+            throws ServletException
+    {
+        super.init(config, context);
+
+        handshake = createHandshakeTemplate();
+    }
+
+    /**
+     * @return template of the handshake packet, null if transport is not initialized
+     */
+    HandshakeTemplate getHandshakeTemplate()
+    {
+        return handshake;
+    }
+
     @Override
     public TransportType getType()
     {
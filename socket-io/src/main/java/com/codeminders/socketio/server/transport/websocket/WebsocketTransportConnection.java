@@ -26,10 +26,15 @@ import com.codeminders.socketio.common.ConnectionState;
 import com.codeminders.socketio.common.DisconnectReason;
 import com.codeminders.socketio.common.SocketIOException;
 import com.codeminders.socketio.protocol.BinaryPacket;
+import com.codeminders.socketio.protocol.ByteBufferInputStream;
 import com.codeminders.socketio.protocol.EngineIOPacket;
 import com.codeminders.socketio.protocol.EngineIOProtocol;
+import com.codeminders.socketio.protocol.HandshakeTemplate;
+import com.codeminders.socketio.protocol.JsonPayloadCodec;
+import com.codeminders.socketio.protocol.PayloadCodec;
 import com.codeminders.socketio.protocol.SocketIOPacket;
 import com.codeminders.socketio.server.*;
+import com.codeminders.socketio.server.transport.AbstractTransport;
 import com.codeminders.socketio.server.transport.AbstractTransportConnection;
 import com.google.common.io.ByteStreams;
 
@@ -40,8 +45,10 @@ import javax.websocket.*;
 import javax.websocket.server.HandshakeRequest;
 import javax.websocket.server.ServerEndpoint;
 import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.List;
@@ -59,6 +66,9 @@ public final class WebsocketTransportConnection extends AbstractTransportConnect
 
     private javax.websocket.Session remote_endpoint;
 
+    // reusable buffer to encode outgoing packets into. guarded by this connection
+    private final CharArrayWriter textBuffer = new CharArrayWriter(1024);
+
     public WebsocketTransportConnection() {
         super(WebsocketTransportProvider.websocket);
     }
@@ -72,6 +82,7 @@ public final class WebsocketTransportConnection extends AbstractTransportConnect
     protected void init()
     {
         getSession().setTimeout(getConfig().getTimeout(Config.DEFAULT_PING_TIMEOUT));
+        getSession().setPingInterval(getConfig().getPingInterval(Config.DEFAULT_PING_INTERVAL));
 
         if (LOGGER.isLoggable(Level.FINE))
             LOGGER.fine(getConfig().getNamespace() + " WebSocket configuration:" +
@@ -86,18 +97,30 @@ public final class WebsocketTransportConnection extends AbstractTransportConnect
         init(new ServletBasedConfig(
                 ServletConfigHolder.getInstance().getConfig(),
                 getTransport().getType().toString()));
-        session.setMaxBinaryMessageBufferSize(getConfig().getBufferSize());
+        // container closes the connection when a message gets larger, before buffering all of it.
+        // maxHttpBufferSize applies to both kinds of messages unless they are configured separately
+        int maxSize = getConfig().getInt(Config.MAX_HTTP_BUFFER_SIZE, -1);
+        session.setMaxBinaryMessageBufferSize(getConfig().getInt(Config.BUFFER_SIZE,
+                maxSize < 0 ? Config.DEFAULT_BUFFER_SIZE : maxSize));
         session.setMaxIdleTimeout(getConfig().getMaxIdle());
-        session.setMaxTextMessageBufferSize(getConfig().getInt(Config.MAX_TEXT_MESSAGE_SIZE, 32000));
+        session.setMaxTextMessageBufferSize(getConfig().getInt(Config.MAX_TEXT_MESSAGE_SIZE,
+                maxSize < 0 ? 32000 : maxSize));
 
         if(getSession().getConnectionState() == ConnectionState.CONNECTING)
         {
             try
             {
-                send(EngineIOProtocol.createHandshakePacket(getSession().getSessionId(),
-                        new String[]{},
-                        getConfig().getPingInterval(Config.DEFAULT_PING_INTERVAL),
-                        getConfig().getTimeout(Config.DEFAULT_PING_TIMEOUT)));
+                HandshakeTemplate handshake = null;
+                if (getTransport() instanceof WebsocketTransport)
+                    handshake = ((WebsocketTransport) getTransport()).getHandshakeTemplate();
+
+                if (handshake != null)
+                    send(handshake.createPacket(getSession().getSessionId()));
+                else
+                    send(EngineIOProtocol.createHandshakePacket(getSession().getSessionId(),
+                            new String[]{},
+                            getConfig().getPingInterval(Config.DEFAULT_PING_INTERVAL),
+                            getConfig().getTimeout(Config.DEFAULT_PING_TIMEOUT)));
 
                 getSession().onConnect(this);
             }
@@ -131,8 +154,6 @@ public final class WebsocketTransportConnection extends AbstractTransportConnect
         if (LOGGER.isLoggable(Level.FINE))
             LOGGER.fine("Session[" + getSession().getSessionId() + "]: text received: " + text);
 
-        getSession().resetTimeout();
-
         try
         {
             getSession().onPacket(EngineIOProtocol.decode(text), this);
@@ -144,17 +165,20 @@ public final class WebsocketTransportConnection extends AbstractTransportConnect
         }
     }
 
+    /**
+     * Binary message is received as a whole into its own array.
+     * The data could be kept by the session as an attachment of a packet still waiting for the rest of attachments,
+     * so container owned buffers and streams, which are valid only during this call, are not used.
+     */
     @OnMessage
-    public void onMessage(InputStream is)
+    public void onMessage(byte[] data)
     {
         if (LOGGER.isLoggable(Level.FINE))
             LOGGER.fine("Session[" + getSession().getSessionId() + "]: binary received");
 
-        getSession().resetTimeout();
-
         try
         {
-            getSession().onPacket(EngineIOProtocol.decode(is), this);
+            getSession().onPacket(EngineIOProtocol.decode(data, getSession().getProtocolVersion()), this);
         }
         catch (SocketIOProtocolException e)
         {
@@ -189,35 +213,106 @@ public final class WebsocketTransportConnection extends AbstractTransportConnect
     @Override
     public void send(EngineIOPacket packet) throws SocketIOException
     {
-        sendString(EngineIOProtocol.encode(packet));
+        if (packet.getBinaryBuffer() != null)
+            sendBinary(packet.getType(), packet.getBinaryBuffer());
+        else if (packet.getBinaryData() != null)
+            sendBinary(packet.getType(), packet.getBinaryData());
+        else
+            sendString(EngineIOProtocol.encode(packet));
     }
 
     @Override
-    public void send(SocketIOPacket packet) throws SocketIOException
+    public synchronized void send(SocketIOPacket packet) throws SocketIOException
     {
-        send(EngineIOProtocol.createMessagePacket(packet.encode()));
+        PayloadCodec codec = getSession().getPayloadCodec();
+        if (!(codec instanceof JsonPayloadCodec))
+        {
+            for (EngineIOPacket p : codec.encode(packet))
+                send(p);
+            return;
+        }
+
+        textBuffer.reset();
+        try
+        {
+            textBuffer.write('0' + EngineIOPacket.Type.MESSAGE.value());
+            packet.encode(textBuffer);
+        }
+        catch (SocketIOProtocolException e)
+        {
+            throw e;
+        }
+        catch (IOException e)
+        {
+            throw new SocketIOProtocolException("Cannot convert object to JSON", e);
+        }
+        sendText(textBuffer);
+
         if(packet instanceof BinaryPacket)
         {
             Collection<InputStream> attachments = ((BinaryPacket) packet).getAttachments();
             for (InputStream is : attachments)
-            {
-                ByteArrayOutputStream os = new ByteArrayOutputStream();
-                try
-                {
-                    os.write(EngineIOPacket.Type.MESSAGE.value());
-                    ByteStreams.copy(is, os);
-                }
-                catch (IOException e)
-                {
-                    if(LOGGER.isLoggable(Level.WARNING))
-                        LOGGER.log(Level.SEVERE, "Cannot load binary object to send it to the socket", e);
-                }
-                sendBinary(os.toByteArray());
-            }
+                sendBinary(EngineIOPacket.Type.MESSAGE, is);
         }
     }
 
-    protected void sendString(String data) throws SocketIOException
+    @Override
+    public synchronized void send(PreparedEvent event) throws SocketIOException
+    {
+        List<EngineIOPacket> packets = event.getPackets();
+        for (int i = 0; i < packets.size(); i++)
+        {
+            String frame = event.getTextFrame(i);
+            if (frame != null)
+                sendString(frame);
+            else
+                send(packets.get(i));
+        }
+    }
+
+    private void sendBinary(EngineIOPacket.Type type, InputStream is) throws SocketIOException
+    {
+        if (is instanceof ByteBufferInputStream)
+        {
+            sendBinary(type, ((ByteBufferInputStream) is).getBuffer());
+            return;
+        }
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try
+        {
+            if (getSession().getProtocolVersion() < EngineIOProtocol.PROTOCOL_V4)
+                os.write(type.value());
+            ByteStreams.copy(is, os);
+        }
+        catch (IOException e)
+        {
+            if(LOGGER.isLoggable(Level.WARNING))
+                LOGGER.log(Level.SEVERE, "Cannot load binary object to send it to the socket", e);
+        }
+        sendBinary(os.toByteArray());
+    }
+
+    /**
+     * Sends encoded text as a single websocket message without converting it to String
+     */
+    private void sendText(CharArrayWriter data) throws SocketIOException
+    {
+        if (LOGGER.isLoggable(Level.FINE))
+            LOGGER.log(Level.FINE, "Session[" + getSession().getSessionId() + "]: send text: " + data.toString());
+
+        try (Writer writer = remote_endpoint.getBasicRemote().getSendWriter())
+        {
+            data.writeTo(writer);
+        }
+        catch (IOException e)
+        {
+            disconnectEndpoint();
+            throw new SocketIOException(e);
+        }
+    }
+
+    protected synchronized void sendString(String data) throws SocketIOException
     {
         if (LOGGER.isLoggable(Level.FINE))
             LOGGER.log(Level.FINE, "Session[" + getSession().getSessionId() + "]: send text: " + data);
@@ -235,7 +330,7 @@ public final class WebsocketTransportConnection extends AbstractTransportConnect
 
     //TODO: implement streaming. right now it is all in memory.
     //TODO: read and send in chunks using sendPartialBytes()
-    protected void sendBinary(byte[] data) throws SocketIOException
+    protected synchronized void sendBinary(byte[] data) throws SocketIOException
     {
         if (LOGGER.isLoggable(Level.FINE))
             LOGGER.log(Level.FINE, "Session[" + getSession().getSessionId() + "]: send binary");
@@ -251,6 +346,33 @@ public final class WebsocketTransportConnection extends AbstractTransportConnect
         }
     }
 
+    /**
+     * Sends packet type and the data as a single binary message made of two parts, without copying the data.
+     * Since protocol 4 binary messages are always MESSAGE packets and have no type
+     */
+    private synchronized void sendBinary(EngineIOPacket.Type type, ByteBuffer data) throws SocketIOException
+    {
+        if (LOGGER.isLoggable(Level.FINE))
+            LOGGER.log(Level.FINE, "Session[" + getSession().getSessionId() + "]: send binary");
+
+        try
+        {
+            RemoteEndpoint.Basic remote = remote_endpoint.getBasicRemote();
+            if (getSession().getProtocolVersion() >= EngineIOProtocol.PROTOCOL_V4)
+            {
+                remote.sendBinary(data);
+                return;
+            }
+            remote.sendBinary(ByteBuffer.wrap(new byte[]{(byte) type.value()}), false);
+            remote.sendBinary(data, true);
+        }
+        catch (IOException e)
+        {
+            disconnectEndpoint();
+            throw new SocketIOException(e);
+        }
+    }
+
     private void disconnectEndpoint()
     {
         try
@@ -283,13 +405,23 @@ public final class WebsocketTransportConnection extends AbstractTransportConnect
      * @return session id extracted from handshake request's parameter
      */
     private String getSessionId(javax.websocket.Session session)
+    {
+        return getParameter(session, EngineIOProtocol.SESSION_ID);
+    }
+
+    /**
+     * @param session websocket session
+     * @param name    parameter name
+     * @return value of handshake request's parameter, null if not found
+     */
+    private String getParameter(javax.websocket.Session session, String name)
     {
         HandshakeRequest handshake = (HandshakeRequest)
                 session.getUserProperties().get(HandshakeRequest.class.getName());
         if (handshake == null) {
             return null;
         }
-        List<String> values = handshake.getParameterMap().get(EngineIOProtocol.SESSION_ID);
+        List<String> values = handshake.getParameterMap().get(name);
         if (values == null || values.isEmpty()) {
             return null;
         }
@@ -325,7 +457,8 @@ public final class WebsocketTransportConnection extends AbstractTransportConnect
         }
         if (sess == null) {
             HttpSession httpSession = getHttpSession(session);
-            sess = SocketIOManager.getInstance().createSession(httpSession);
+            sess = ((AbstractTransport) getTransport()).createSession(SocketIOManager.getInstance(), httpSession,
+                    EngineIOProtocol.parseVersion(getParameter(session, EngineIOProtocol.VERSION)));
         }
         setSession(sess);
     }
@@ -0,0 +1,59 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ByteBufferInputStreamTest
+{
+    @Test
+    public void resetWithoutMarkGoesToStart()
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{1, 2, 3});
+        buffer.position(1);
+        ByteBufferInputStream is = new ByteBufferInputStream(buffer);
+
+        assertEquals(2, is.read());
+        assertEquals(3, is.read());
+        is.reset();
+        assertEquals(2, is.available());
+        assertEquals(2, is.read());
+    }
+
+    @Test
+    public void resetToMark()
+    {
+        ByteBufferInputStream is = new ByteBufferInputStream(new byte[]{1, 2, 3});
+
+        assertEquals(1, is.read());
+        is.mark(10);
+        assertEquals(2, is.read());
+        is.reset();
+        assertEquals(2, is.read());
+        assertEquals(1, is.getBuffer().remaining());
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import com.codeminders.socketio.server.SocketIOProtocolException;
+import com.google.common.io.BaseEncoding;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EngineIOProtocolTest
+{
+    private static String base64Encode(EngineIOPacket packet) throws IOException
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        EngineIOProtocol.base64Encode(packet, os);
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void assertBase64(int size) throws IOException
+    {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+
+        String base64 = BaseEncoding.base64().encode(data);
+        String expected = (base64.length() + 2) + ":b4" + base64;
+
+        assertEquals("size " + size, expected, base64Encode(EngineIOProtocol.createMessagePacket(ByteBuffer.wrap(data))));
+    }
+
+    @Test
+    public void base64SmallSizes() throws IOException
+    {
+        for (int size = 0; size <= 5; size++)
+            assertBase64(size);
+    }
+
+    @Test
+    public void base64ChunkBoundary() throws IOException
+    {
+        // base64 is written in chunks of 4096 characters, 3072 bytes
+        for (int size : new int[]{3071, 3072, 3073, 4096, 4097, 4098, 6144, 10000})
+            assertBase64(size);
+    }
+
+    @Test
+    public void base64Stream() throws IOException
+    {
+        byte[] data = {1, 2, 3, 4};
+        assertEquals("10:b4AQIDBA==", base64Encode(
+                EngineIOProtocol.createMessagePacket(new ByteArrayInputStream(data))));
+    }
+
+    @Test
+    public void base64Text() throws IOException
+    {
+        assertEquals("6:4hello", base64Encode(EngineIOProtocol.createMessagePacket("hello")));
+        assertEquals("1:4", base64Encode(EngineIOProtocol.createMessagePacket("")));
+    }
+
+    @Test
+    public void base64TextLengthCountsUtf16() throws IOException
+    {
+        // 2, 3 and 4 bytes in UTF-8, the last one is a surrogate pair
+        String text = "aé€😀";
+        assertEquals(5, text.length());
+        assertEquals("6:4" + text, base64Encode(EngineIOProtocol.createMessagePacket(text)));
+    }
+
+    private static byte[] bytes(EngineIOPacket packet)
+    {
+        ByteBuffer buffer = packet.getBinaryBuffer();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void assertMalformed(String payload, boolean records)
+    {
+        try
+        {
+            if (records)
+                EngineIOProtocol.decodeRecordPayload(payload.toCharArray(), 0, payload.length());
+            else
+                EngineIOProtocol.decodePayload(payload);
+            fail("Payload must be rejected: " + payload);
+        }
+        catch (SocketIOProtocolException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void decodePayloadOfManyPackets() throws SocketIOProtocolException
+    {
+        List<EngineIOPacket> packets = EngineIOProtocol.decodePayload("6:4hello2:2x1:610:b4AQIDBA==");
+
+        assertEquals(4, packets.size());
+        assertEquals(EngineIOPacket.Type.MESSAGE, packets.get(0).getType());
+        assertEquals("hello", packets.get(0).getTextData());
+        assertEquals(EngineIOPacket.Type.PING, packets.get(1).getType());
+        assertEquals("x", packets.get(1).getTextData());
+        assertEquals(EngineIOPacket.Type.NOOP, packets.get(2).getType());
+        assertEquals(EngineIOPacket.Type.MESSAGE, packets.get(3).getType());
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, bytes(packets.get(3)));
+    }
+
+    @Test
+    public void decodePayloadWithOffset() throws SocketIOProtocolException
+    {
+        char[] payload = "xx3:4ab4:b4AQyy".toCharArray();
+        List<EngineIOPacket> packets = EngineIOProtocol.decodePayload(payload, 2, payload.length - 4);
+
+        assertEquals(2, packets.size());
+        assertEquals("ab", packets.get(0).getTextData());
+        assertArrayEquals(new byte[]{1}, bytes(packets.get(1)));
+    }
+
+    @Test
+    public void decodeEmptyPayload() throws SocketIOProtocolException
+    {
+        assertTrue(EngineIOProtocol.decodePayload("").isEmpty());
+        assertTrue(EngineIOProtocol.decodeRecordPayload(new char[0], 0, 0).isEmpty());
+    }
+
+    @Test
+    public void decodeMalformedPayload()
+    {
+        assertMalformed("10:4abc", false);      // truncated packet
+        assertMalformed("6:4hello2", false);    // truncated length
+        assertMalformed("6:4hello2:", false);   // no packet after length
+        assertMalformed("4hello", false);       // no length
+        assertMalformed(":4hello", false);
+        assertMalformed("0:", false);
+        assertMalformed("99999999999999999999:4", false);
+        assertMalformed("2:x1", false);         // invalid type
+        assertMalformed("1:b", false);          // base64 without type
+        assertMalformed("4:b2AQ", false);       // base64 packet is not a message
+        assertMalformed("4:b4A!", false);       // invalid base64
+    }
+
+    @Test
+    public void decodeRecordPayloadOfManyPackets() throws SocketIOProtocolException
+    {
+        String payload = "4hello\u001e2\u001ebAQID\u001e6";
+        List<EngineIOPacket> packets = EngineIOProtocol.decodeRecordPayload(payload.toCharArray(), 0, payload.length());
+
+        assertEquals(4, packets.size());
+        assertEquals(EngineIOPacket.Type.MESSAGE, packets.get(0).getType());
+        assertEquals("hello", packets.get(0).getTextData());
+        assertEquals(EngineIOPacket.Type.PING, packets.get(1).getType());
+        assertEquals("", packets.get(1).getTextData());
+        assertEquals(EngineIOPacket.Type.MESSAGE, packets.get(2).getType());
+        assertArrayEquals(new byte[]{1, 2, 3}, bytes(packets.get(2)));
+        assertEquals(EngineIOPacket.Type.NOOP, packets.get(3).getType());
+    }
+
+    @Test
+    public void decodeRecordPayloadWithOffset() throws SocketIOProtocolException
+    {
+        char[] payload = "\u001e4a\u001e4b\u001e".toCharArray();
+        List<EngineIOPacket> packets = EngineIOProtocol.decodeRecordPayload(payload, 1, payload.length - 2);
+
+        assertEquals(2, packets.size());
+        assertEquals("a", packets.get(0).getTextData());
+        assertEquals("b", packets.get(1).getTextData());
+    }
+
+    @Test
+    public void decodeMalformedRecordPayload()
+    {
+        assertMalformed("4a\u001e\u001e4b", true); // empty record
+        assertMalformed("\u001e4a", true);
+        assertMalformed("x\u001e4a", true);         // invalid type
+        assertMalformed("4a\u001eb!!", true);       // invalid base64
+    }
+
+    @Test
+    public void decodePayloadFromReader() throws IOException
+    {
+        List<EngineIOPacket> packets = EngineIOProtocol.decodePayload(new StringReader("6:4hello"), 8);
+        assertEquals("hello", packets.get(0).getTextData());
+
+        try
+        {
+            EngineIOProtocol.decodePayload(new StringReader("6:4hello"), 7);
+            fail("Oversized payload must be rejected");
+        }
+        catch (SocketIOProtocolException e)
+        {
+            // expected
+        }
+    }
+}
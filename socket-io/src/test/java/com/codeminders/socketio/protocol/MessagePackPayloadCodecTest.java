@@ -0,0 +1,114 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import com.codeminders.socketio.server.SocketIOProtocolException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MessagePackPayloadCodecTest
+{
+    private final MessagePackPayloadCodec codec = new MessagePackPayloadCodec();
+
+    private static Map<?, ?> readMessagePack(EngineIOPacket packet) throws IOException
+    {
+        assertNull(packet.getText());
+        ByteBuffer buffer = packet.getBinaryBuffer().duplicate();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new ObjectMapper(new MessagePackFactory()).readValue(bytes, Map.class);
+    }
+
+    @Test
+    public void connectV3IsText() throws SocketIOProtocolException
+    {
+        List<EngineIOPacket> packets = codec.forProtocol(EngineIOProtocol.PROTOCOL_V3)
+                .encode(SocketIOProtocol.createConnectPacket("/chat"));
+
+        assertEquals(1, packets.size());
+        assertEquals("{\"type\":0,\"nsp\":\"/chat\"}", packets.get(0).getTextData());
+    }
+
+    @Test
+    public void connectV5IsMessagePack() throws IOException
+    {
+        PayloadCodec v5 = codec.forProtocol(EngineIOProtocol.PROTOCOL_V4);
+        assertSame(v5, v5.forProtocol(EngineIOProtocol.PROTOCOL_V4));
+
+        List<EngineIOPacket> packets = v5.encode(SocketIOProtocol.createConnectPacket("/chat",
+                Collections.singletonMap("sid", "abc")));
+
+        assertEquals(1, packets.size());
+        Map<?, ?> map = readMessagePack(packets.get(0));
+        assertEquals(0, ((Number) map.get("type")).intValue());
+        assertEquals("/chat", map.get("nsp"));
+        assertEquals(Collections.singletonMap("sid", "abc"), map.get("data"));
+    }
+
+    @Test
+    public void connectErrorV5IsMessagePack() throws IOException
+    {
+        List<EngineIOPacket> packets = codec.forProtocol(EngineIOProtocol.PROTOCOL_V4)
+                .encode(SocketIOProtocol.createErrorPacket("/chat", Collections.singletonMap("message", "denied")));
+
+        Map<?, ?> map = readMessagePack(packets.get(0));
+        assertEquals(SocketIOPacket.Type.ERROR.value(), ((Number) map.get("type")).intValue());
+        assertEquals(Collections.singletonMap("message", "denied"), map.get("data"));
+    }
+
+    @Test
+    public void connectV5RoundTrip() throws SocketIOProtocolException
+    {
+        PayloadCodec v5 = codec.forProtocol(EngineIOProtocol.PROTOCOL_V4);
+        EngineIOPacket packet = v5.encode(SocketIOProtocol.createConnectPacket("/chat",
+                Collections.singletonMap("token", "abc"))).get(0);
+
+        SocketIOPacket decoded = v5.decode(packet.getBinaryData(), null);
+        assertEquals(SocketIOPacket.Type.CONNECT, decoded.getType());
+        assertEquals("/chat", decoded.getNamespace());
+        assertEquals(Collections.singletonMap("token", "abc"), ((ConnectPacket) decoded).getArgs());
+    }
+
+    @Test
+    public void binaryInsideList() throws IOException
+    {
+        List<EngineIOPacket> packets = codec.encode(SocketIOProtocol.createEventPacket(-1, "/", "data",
+                new Object[]{Arrays.asList(new byte[]{1}), Collections.singletonMap("list", Arrays.asList(new byte[]{2}))}));
+
+        assertEquals(1, packets.size());
+        List<?> data = (List<?>) readMessagePack(packets.get(0)).get("data");
+        assertEquals("data", data.get(0));
+        assertArrayEquals(new byte[]{1}, (byte[]) ((List<?>) data.get(1)).get(0));
+        assertArrayEquals(new byte[]{2}, (byte[]) ((List<?>) ((Map<?, ?>) data.get(2)).get("list")).get(0));
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.protocol;
+
+import com.codeminders.socketio.server.SocketIOProtocolException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SocketIOProtocolTest
+{
+    @Test
+    public void connect() throws SocketIOProtocolException
+    {
+        SocketIOPacket packet = SocketIOProtocol.decode("0");
+        assertEquals(SocketIOPacket.Type.CONNECT, packet.getType());
+        assertEquals(SocketIOProtocol.DEFAULT_NAMESPACE, packet.getNamespace());
+
+        packet = SocketIOProtocol.decode("0/chat,");
+        assertEquals(SocketIOPacket.Type.CONNECT, packet.getType());
+        assertEquals("/chat", packet.getNamespace());
+
+        packet = SocketIOProtocol.decode("0/chat");
+        assertEquals("/chat", packet.getNamespace());
+    }
+
+    @Test
+    public void connectWithAuth() throws SocketIOProtocolException
+    {
+        SocketIOPacket packet = SocketIOProtocol.decode("0/chat,{\"token\":\"abc\"}");
+        assertEquals("/chat", packet.getNamespace());
+        assertEquals(Collections.singletonMap("token", "abc"), ((ConnectPacket) packet).getArgs());
+    }
+
+    @Test
+    public void disconnect() throws SocketIOProtocolException
+    {
+        SocketIOPacket packet = SocketIOProtocol.decode("1");
+        assertEquals(SocketIOPacket.Type.DISCONNECT, packet.getType());
+        assertEquals(SocketIOProtocol.DEFAULT_NAMESPACE, packet.getNamespace());
+
+        packet = SocketIOProtocol.decode("1/chat,");
+        assertEquals(SocketIOPacket.Type.DISCONNECT, packet.getType());
+        assertEquals("/chat", packet.getNamespace());
+    }
+
+    @Test
+    public void event() throws SocketIOProtocolException
+    {
+        EventPacket packet = (EventPacket) SocketIOProtocol.decode("2[\"hello\",1,\"a\"]");
+        assertEquals(SocketIOPacket.Type.EVENT, packet.getType());
+        assertEquals(SocketIOProtocol.DEFAULT_NAMESPACE, packet.getNamespace());
+        assertEquals(-1, packet.getId());
+        assertEquals("hello", packet.getName());
+        assertArrayEquals(new Object[]{1, "a"}, packet.getArgs());
+    }
+
+    @Test
+    public void eventWithId() throws SocketIOProtocolException
+    {
+        EventPacket packet = (EventPacket) SocketIOProtocol.decode("212[\"hello\"]");
+        assertEquals(SocketIOProtocol.DEFAULT_NAMESPACE, packet.getNamespace());
+        assertEquals(12, packet.getId());
+        assertEquals("hello", packet.getName());
+        assertEquals(0, packet.getArgs().length);
+    }
+
+    @Test
+    public void eventWithNamespace() throws SocketIOProtocolException
+    {
+        EventPacket packet = (EventPacket) SocketIOProtocol.decode("2/chat,[\"hello\",{\"a\":1}]");
+        assertEquals("/chat", packet.getNamespace());
+        assertEquals(-1, packet.getId());
+        assertEquals("hello", packet.getName());
+        assertArrayEquals(new Object[]{Collections.singletonMap("a", 1)}, packet.getArgs());
+    }
+
+    @Test
+    public void eventWithNamespaceAndId() throws SocketIOProtocolException
+    {
+        EventPacket packet = (EventPacket) SocketIOProtocol.decode("2/chat,7[\"hello\",[1,2]]");
+        assertEquals("/chat", packet.getNamespace());
+        assertEquals(7, packet.getId());
+        assertEquals("hello", packet.getName());
+        assertArrayEquals(new Object[]{Arrays.asList(1, 2)}, packet.getArgs());
+    }
+
+    @Test
+    public void eventWithNonStringName() throws SocketIOProtocolException
+    {
+        EventPacket packet = (EventPacket) SocketIOProtocol.decode("2[12,true]");
+        assertEquals("12", packet.getName());
+        assertArrayEquals(new Object[]{true}, packet.getArgs());
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void eventWithNullName() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("2[null,1]");
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void eventWithoutName() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("2[]");
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void eventWithoutArray() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("2{\"a\":1}");
+    }
+
+    @Test
+    public void ack() throws SocketIOProtocolException
+    {
+        ACKPacket packet = (ACKPacket) SocketIOProtocol.decode("3/chat,5[\"ok\",2]");
+        assertEquals(SocketIOPacket.Type.ACK, packet.getType());
+        assertEquals("/chat", packet.getNamespace());
+        assertEquals(5, packet.getId());
+        assertArrayEquals(new Object[]{"ok", 2}, packet.getArgs());
+
+        packet = (ACKPacket) SocketIOProtocol.decode("30[]");
+        assertEquals(SocketIOProtocol.DEFAULT_NAMESPACE, packet.getNamespace());
+        assertEquals(0, packet.getId());
+        assertEquals(0, packet.getArgs().length);
+    }
+
+    @Test
+    public void error() throws SocketIOProtocolException
+    {
+        SocketIOPacket packet = SocketIOProtocol.decode("4/chat,\"Invalid namespace\"");
+        assertEquals(SocketIOPacket.Type.ERROR, packet.getType());
+        assertEquals("/chat", packet.getNamespace());
+        assertEquals("4/chat,\"Invalid namespace\"", packet.encode());
+    }
+
+    @Test
+    public void binaryEvent() throws SocketIOProtocolException
+    {
+        EventPacket packet = (EventPacket) SocketIOProtocol.decode(
+                "52-/chat,3[\"upload\",{\"_placeholder\":true,\"num\":1},{\"f\":{\"_placeholder\":true,\"num\":0}}]");
+        assertEquals(SocketIOPacket.Type.BINARY_EVENT, packet.getType());
+        assertEquals("/chat", packet.getNamespace());
+        assertEquals(3, packet.getId());
+        assertEquals("upload", packet.getName());
+
+        BinaryPacket binary = (BinaryPacket) packet;
+        InputStream first = new ByteArrayInputStream(new byte[]{1});
+        InputStream second = new ByteArrayInputStream(new byte[]{2});
+
+        SocketIOProtocol.insertBinaryObject(binary, first);
+        binary.addAttachment(first);
+        assertFalse(binary.isComplete());
+
+        SocketIOProtocol.insertBinaryObject(binary, second);
+        binary.addAttachment(second);
+        assertTrue(binary.isComplete());
+
+        assertSame(second, packet.getArgs()[0]);
+        assertSame(first, ((Map<?, ?>) packet.getArgs()[1]).get("f"));
+    }
+
+    @Test
+    public void binaryAck() throws SocketIOProtocolException
+    {
+        ACKPacket packet = (ACKPacket) SocketIOProtocol.decode("61-4[{\"_placeholder\":true,\"num\":0}]");
+        assertEquals(SocketIOPacket.Type.BINARY_ACK, packet.getType());
+        assertEquals(SocketIOProtocol.DEFAULT_NAMESPACE, packet.getNamespace());
+        assertEquals(4, packet.getId());
+
+        InputStream attachment = new ByteArrayInputStream(new byte[]{1});
+        SocketIOProtocol.insertBinaryObject((BinaryPacket) packet, attachment);
+        assertSame(attachment, packet.getArgs()[0]);
+    }
+
+    @Test
+    public void largestPacketId() throws SocketIOProtocolException
+    {
+        SocketIOPacket packet = SocketIOProtocol.decode("2" + Integer.MAX_VALUE + "[\"hello\"]");
+        assertEquals(Integer.MAX_VALUE, packet.getId());
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void overflowingPacketId() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("2" + (Integer.MAX_VALUE + 1L) + "[\"hello\"]");
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void overflowingAttachmentCount() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("5" + (Integer.MAX_VALUE + 1L) + "-[\"x\",{\"_placeholder\":true,\"num\":0}]");
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void attachmentCountLargerThanPayload() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("52000000000-[\"x\"]");
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void missingPlaceholder() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("52-[\"x\",{\"_placeholder\":true,\"num\":0}]");
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void duplicatePlaceholder() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("52-[\"x\",{\"_placeholder\":true,\"num\":0},{\"_placeholder\":true,\"num\":0}]");
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void missingAttachmentDelimiter() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("51[\"x\",{\"_placeholder\":true,\"num\":0}]");
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void missingAttachmentCount() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("5-[\"x\",{\"_placeholder\":true,\"num\":0}]");
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void emptyPacket() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("");
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void invalidType() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("9[\"hello\"]");
+    }
+
+    @Test(expected = SocketIOProtocolException.class)
+    public void invalidJson() throws SocketIOProtocolException
+    {
+        SocketIOProtocol.decode("2[\"hello\",");
+    }
+}
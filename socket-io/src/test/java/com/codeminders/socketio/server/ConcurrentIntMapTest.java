@@ -0,0 +1,269 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.server;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentIntMapTest
+{
+    private static final class Value implements ConcurrentIntMap.Entry
+    {
+        private final int key;
+
+        Value(int key)
+        {
+            this.key = key;
+        }
+
+        @Override
+        public int getKey()
+        {
+            return key;
+        }
+    }
+
+    @Test
+    public void putAndRemove()
+    {
+        ConcurrentIntMap<Value> map = new ConcurrentIntMap<>();
+        Value[] values = new Value[1000];
+        for (int i = 0; i < values.length; i++)
+            map.put(values[i] = new Value(i * 7));
+
+        assertEquals(values.length, map.size());
+        assertNull(map.remove(1));
+
+        for (Value value : values)
+            assertSame(value, map.remove(value.getKey()));
+
+        assertEquals(0, map.size());
+        assertNull(map.remove(0));
+    }
+
+    @Test
+    public void removeValue()
+    {
+        ConcurrentIntMap<Value> map = new ConcurrentIntMap<>();
+        Value value = new Value(5);
+        map.put(value);
+
+        assertFalse(map.remove(new Value(5)));
+        assertTrue(map.remove(value));
+        assertFalse(map.remove(value));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void removeAll()
+    {
+        ConcurrentIntMap<Value> map = new ConcurrentIntMap<>();
+        for (int i = 0; i < 100; i++)
+            map.put(new Value(i));
+        map.remove(10);
+
+        List<Value> removed = map.removeAll();
+        assertEquals(99, removed.size());
+        assertEquals(0, map.size());
+        assertNull(map.remove(20));
+    }
+
+    @Test
+    public void tombstonesAreReused()
+    {
+        ConcurrentIntMap<Value> map = new ConcurrentIntMap<>();
+        int capacity = map.capacity();
+
+        for (int i = 0; i < 6; i++)
+            map.put(new Value(i));
+        for (int i = 0; i < 6; i++)
+            map.remove(i);
+        assertEquals(6, map.usedSlots());
+
+        // same keys probe the same slots and take their tombstones
+        for (int round = 0; round < 1000; round++)
+        {
+            for (int i = 0; i < 6; i++)
+                map.put(new Value(i));
+            for (int i = 0; i < 6; i++)
+                assertNotNull(map.remove(i));
+        }
+
+        assertEquals(6, map.usedSlots());
+        assertEquals(capacity, map.capacity());
+    }
+
+    @Test
+    public void churnDoesNotGrowTable()
+    {
+        ConcurrentIntMap<Value> map = new ConcurrentIntMap<>();
+        int capacity = map.capacity();
+
+        // sequential ids, as packet ids are given out, with a few in flight at a time
+        for (int i = 0; i < 100000; i++)
+        {
+            map.put(new Value(i));
+            if (i >= 3)
+                assertNotNull(map.remove(i - 3));
+        }
+
+        assertEquals(3, map.size());
+        assertEquals(capacity, map.capacity());
+    }
+
+    /**
+     * Every thread puts and removes its own keys, so the table grows, shrinks and is rebuilt
+     * while other threads use it
+     */
+    @Test(timeout = 60000)
+    public void concurrentPutRemoveRebuild() throws Throwable
+    {
+        final ConcurrentIntMap<Value> map = new ConcurrentIntMap<>();
+        final int threads = 8;
+        final int rounds = 200;
+        final int batch = 500;
+
+        run(threads, new Task()
+        {
+            @Override
+            public void run(int thread)
+            {
+                Value[] values = new Value[batch];
+                for (int round = 0; round < rounds; round++)
+                {
+                    int base = (thread * rounds + round) * batch;
+                    for (int i = 0; i < batch; i++)
+                        map.put(values[i] = new Value(base + i));
+
+                    for (int i = 0; i < batch; i += 2)
+                        assertSame(values[i], map.remove(base + i));
+                    for (int i = 1; i < batch; i += 2)
+                        assertTrue(map.remove(values[i]));
+                    for (int i = 0; i < batch; i++)
+                        assertNull(map.remove(base + i));
+                }
+            }
+        });
+
+        assertEquals(0, map.size());
+        assertTrue(map.removeAll().isEmpty());
+    }
+
+    /**
+     * Values are put by some threads and removed by others, like ACKs arriving on I/O threads.
+     * Every value must be removed exactly once
+     */
+    @Test(timeout = 60000)
+    public void concurrentRemoveFromOtherThreads() throws Throwable
+    {
+        final ConcurrentIntMap<Value> map = new ConcurrentIntMap<>();
+        final int count = 400000;
+        final AtomicInteger nextKey = new AtomicInteger();
+        final AtomicReferenceArray<Value> put = new AtomicReferenceArray<>(count);
+        final AtomicInteger removed = new AtomicInteger();
+
+        run(8, new Task()
+        {
+            @Override
+            public void run(int thread)
+            {
+                if (thread % 2 == 0)
+                {
+                    // producer
+                    for (int key; (key = nextKey.getAndIncrement()) < count; )
+                    {
+                        Value value = new Value(key);
+                        put.set(key, value);
+                        map.put(value);
+                    }
+                }
+                else
+                {
+                    // consumer, takes every key with the same remainder
+                    for (int key = thread / 2; key < count; key += 4)
+                    {
+                        Value value;
+                        while ((value = map.remove(key)) == null)
+                            Thread.yield();
+
+                        assertSame(put.get(key), value);
+                        removed.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        assertEquals(count, removed.get());
+        assertEquals(0, map.size());
+    }
+
+    private interface Task
+    {
+        void run(int thread) throws Exception;
+    }
+
+    private static void run(int threads, final Task task) throws Throwable
+    {
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> started = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++)
+        {
+            final int thread = i;
+            Thread t = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                        task.run(thread);
+                    }
+                    catch (Throwable e)
+                    {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            t.start();
+            started.add(t);
+        }
+
+        start.countDown();
+        for (Thread t : started)
+            t.join();
+
+        if (failure.get() != null)
+            throw failure.get();
+    }
+}
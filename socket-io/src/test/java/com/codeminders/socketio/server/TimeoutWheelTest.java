@@ -0,0 +1,224 @@
+/**
+ * The MIT License
+ * Copyright (c) 2026 socket.io-server-java contributors
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.codeminders.socketio.server;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * The wheel task is run by the test instead of the executor. Delays are much longer than
+ * the tick, so the checks do not depend on scheduling precision.
+ */
+public class TimeoutWheelTest
+{
+    private static final long TICK  = 10;
+    private static final long DELAY = 200;
+
+    /**
+     * Keeps the periodic wheel task for the test to run it
+     */
+    private static final class ManualExecutor extends ScheduledThreadPoolExecutor
+    {
+        Runnable wheelTask;
+
+        ManualExecutor()
+        {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit)
+        {
+            assertNull("Wheel is started once", wheelTask);
+            wheelTask = command;
+            return null;
+        }
+
+        void tick()
+        {
+            if (wheelTask != null)
+                wheelTask.run();
+        }
+    }
+
+    private static final class Counter implements Runnable
+    {
+        final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void run()
+        {
+            count.incrementAndGet();
+        }
+    }
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private final TimeoutWheel   wheel    = new TimeoutWheel(executor, TICK, 8);
+
+    @After
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    private void sleepAndTick(long millis) throws InterruptedException
+    {
+        Thread.sleep(millis);
+        executor.tick();
+    }
+
+    @Test
+    public void expires() throws InterruptedException
+    {
+        Counter task = new Counter();
+        TimeoutWheel.Timeout timeout = wheel.newTimeout(task);
+
+        executor.tick();
+        assertNull("Wheel is started by the first reset", executor.wheelTask);
+
+        timeout.reset(DELAY);
+        sleepAndTick(DELAY / 4);
+        assertEquals(0, task.count.get());
+
+        sleepAndTick(DELAY);
+        assertEquals(1, task.count.get());
+
+        sleepAndTick(DELAY);
+        assertEquals("Timeout fires once", 1, task.count.get());
+    }
+
+    @Test
+    public void resetBeforeDeadline() throws InterruptedException
+    {
+        Counter task = new Counter();
+        TimeoutWheel.Timeout timeout = wheel.newTimeout(task);
+
+        timeout.reset(DELAY);
+        sleepAndTick(DELAY * 3 / 4);
+        timeout.reset(DELAY);
+
+        // first deadline has passed, the second has not
+        sleepAndTick(DELAY / 2);
+        assertEquals(0, task.count.get());
+
+        sleepAndTick(DELAY);
+        assertEquals(1, task.count.get());
+    }
+
+    @Test
+    public void cancel() throws InterruptedException
+    {
+        Counter task = new Counter();
+        TimeoutWheel.Timeout timeout = wheel.newTimeout(task);
+
+        timeout.reset(DELAY);
+        sleepAndTick(DELAY / 4);
+        timeout.cancel();
+
+        sleepAndTick(DELAY * 2);
+        assertEquals(0, task.count.get());
+
+        // cancelled timeout could be started again
+        timeout.reset(DELAY / 4);
+        sleepAndTick(DELAY);
+        assertEquals(1, task.count.get());
+    }
+
+    @Test
+    public void rearmAfterExpiry() throws InterruptedException
+    {
+        Counter task = new Counter();
+        TimeoutWheel.Timeout timeout = wheel.newTimeout(task);
+
+        timeout.reset(DELAY / 4);
+        sleepAndTick(DELAY);
+        assertEquals(1, task.count.get());
+
+        timeout.reset(DELAY / 4);
+        sleepAndTick(DELAY);
+        assertEquals(2, task.count.get());
+    }
+
+    @Test
+    public void rearmFromTask() throws InterruptedException
+    {
+        final Counter counter = new Counter();
+        final TimeoutWheel.Timeout[] timeout = new TimeoutWheel.Timeout[1];
+        timeout[0] = wheel.newTimeout(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                // runs after the timeout is unscheduled, like a session answering its own timeout
+                counter.run();
+                timeout[0].reset(DELAY / 4);
+            }
+        });
+
+        timeout[0].reset(DELAY / 4);
+        sleepAndTick(DELAY);
+        assertEquals(1, counter.count.get());
+
+        sleepAndTick(DELAY);
+        assertEquals(2, counter.count.get());
+
+        timeout[0].cancel();
+        sleepAndTick(DELAY);
+        assertEquals(2, counter.count.get());
+    }
+
+    @Test
+    public void manyTimeoutsInOneBucket() throws InterruptedException
+    {
+        // more timeouts than buckets, some of them refreshed, some cancelled
+        Counter expired = new Counter();
+        Counter refreshed = new Counter();
+        Counter cancelled = new Counter();
+        TimeoutWheel.Timeout[] timeouts = new TimeoutWheel.Timeout[60];
+        for (int i = 0; i < timeouts.length; i++)
+        {
+            timeouts[i] = wheel.newTimeout(i % 3 == 0 ? expired : i % 3 == 1 ? refreshed : cancelled);
+            timeouts[i].reset(DELAY / 4);
+        }
+
+        for (int i = 0; i < timeouts.length; i++)
+        {
+            if (i % 3 == 1)
+                timeouts[i].reset(DELAY * 10);
+            else if (i % 3 == 2)
+                timeouts[i].cancel();
+        }
+
+        sleepAndTick(DELAY);
+        assertEquals(20, expired.count.get());
+        assertEquals(0, refreshed.count.get());
+        assertEquals(0, cancelled.count.get());
+    }
+}